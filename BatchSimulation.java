@@ -0,0 +1,340 @@
+import java.nio.LongBuffer;
+import java.util.*;
+
+//Bot One trials stepped in lockstep, a fixed number of slots at a time. Every slot holds one trial, with its own layout and its own seeded
+//fire stream, but there are no per trial objects besides that stream: the state of all slots lives side by side in flat primitive arrays
+//(struct of arrays), slot s owning words [s * words, (s + 1) * words) of the bit planes and cells [s * size, (s + 1) * size) of the per
+//cell arrays, and the bot's position, ticks and status are one entry per slot. A tick moves every bot, then spreads every fire, then
+//checks every bot, each phase one loop over the active list of slots in play. At the end of the tick the decided trials are compacted out
+//of that list, their slots take the next trials while there are any, so the loops never visit a finished trial and no trial waits for a
+//slower one. The fire spreads through FireKernel like FireEngine's ADAPTIVE mode (same candidates, same draw order, same switch to the
+//dense kernel), so every trial ends exactly like ShipBots.botOneSimulation on the same layout and fire seed. Bot One ignores the fire
+//while it moves, which is what lets it run without the danger grid and the planners; the planning bots keep running one ShipBots at a time
+public class BatchSimulation {
+    private static final byte IN_PLAY = -1; //status of a slot whose trial is not decided yet, otherwise the ordinal of its outcome
+
+    private static final SimulationResult.Outcome[] OUTCOMES = SimulationResult.Outcome.values();
+
+    private final int rows, cols; //dimensions of every layout in the batch
+    private final int stride, size, words; //of a ShipGrid of those dimensions
+    private final int slots;
+    private final double[] igniteProbability = new double[5]; //for the running batch, see FireKernel.igniteProbabilities
+
+    //the slot planes and per cell arrays, see above
+    private final long[] open;
+    private final long[] fire;
+    private final long[] visited; //cells Bot One queued, so it queues every cell once
+    private final long[] candidateBits; //cells already in the candidate list of the step being taken, cleared again at its end like FireEngine's
+    private final byte[] burningNeighbors; //burningNeighbors[s * size + cell] = burning cells next to 'cell' in slot s
+    private final int[] frontier; //burning cells of slot s with an open neighbor that is not on fire, the first frontierSize[s] of its cells
+    private final int[] queue; //Bot One's queue of slot s, its cells queueHead[s] .. queueTail[s] - 1, never more than 'size' since every cell is queued once
+
+    //per slot scalars, indexed by slot
+    private final int[] frontierSize, burningCount;
+    private final boolean[] dense; //true while the slot's fire runs the dense kernel
+    private final RandomStream[] random; //the slot's fire draws, a new stream per trial
+    private final int[] trial; //trial in the slot, its index in the arrays passed to run()
+    private final int[] position, button, ticks;
+    private final byte[] status; //IN_PLAY or the ordinal of the trial's outcome
+    private final int[] queueHead, queueTail;
+    private final long[] wallNanos, spreadNanos; //the slot's share of every tick it was in play
+    private final int[] active; //slots in play, the first activeCount entries
+    private int activeCount;
+
+    private final int[] candidates, ignited; //scratch of the slot being spread, FireEngine's lists
+    private final double[] draws; //scratch uniforms of the slot being spread, drawn in the same batches as FireEngine's
+
+    public BatchSimulation(int rows, int cols, int slots) {
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = cols + 2;
+        this.size = (rows + 2) * stride;
+        this.words = (size + 63) >>> 6;
+        this.slots = slots;
+        this.open = new long[slots * words];
+        this.fire = new long[slots * words];
+        this.visited = new long[slots * words];
+        this.candidateBits = new long[words]; //only used while one slot is spread, and empty again after it
+        this.burningNeighbors = new byte[slots * size];
+        this.frontier = new int[slots * size];
+        this.queue = new int[slots * size];
+        this.frontierSize = new int[slots];
+        this.burningCount = new int[slots];
+        this.dense = new boolean[slots];
+        this.random = new RandomStream[slots];
+        this.trial = new int[slots];
+        this.position = new int[slots];
+        this.button = new int[slots];
+        this.ticks = new int[slots];
+        this.status = new byte[slots];
+        this.queueHead = new int[slots];
+        this.queueTail = new int[slots];
+        this.wallNanos = new long[slots];
+        this.spreadNanos = new long[slots];
+        this.active = new int[slots];
+        this.candidates = new int[size];
+        this.ignited = new int[size];
+        this.draws = new double[Math.max(size, 64)];
+    }
+
+    //runs Bot One on every layout (not modified) with a fire of spread probability 'q' seeded by the matching entry of 'fireSeeds', and returns
+    //the result of every trial in the same order. Wall and spread times are the trial's share of the ticks it was in play, there are no planning times
+    public SimulationResult[] run(ShipGenerator[] layouts, double q, long[] fireSeeds) {
+        FireKernel.igniteProbabilities(q, igniteProbability);
+        SimulationResult[] results = new SimulationResult[layouts.length];
+        int next = 0;
+        activeCount = 0;
+        while (activeCount < slots && next < layouts.length) {
+            load(activeCount, next, layouts[next], fireSeeds[next]);
+            active[activeCount] = activeCount;
+            activeCount++;
+            next++;
+        }
+
+        while (activeCount > 0) {
+            long tickStart = System.nanoTime();
+            int spreading = 0;
+            for (int i = 0; i < activeCount; i++) { //Bot One's moves
+                int s = active[i];
+                status[s] = move(s);
+                if (status[s] == IN_PLAY) {
+                    spreading++;
+                }
+            }
+
+            long spreadStart = System.nanoTime();
+            for (int i = 0; i < activeCount; i++) {
+                if (status[active[i]] == IN_PLAY) {
+                    step(active[i]);
+                }
+            }
+            long spreadShare = spreading == 0 ? 0 : (System.nanoTime() - spreadStart) / spreading;
+
+            for (int i = 0; i < activeCount; i++) { //the bots whose cell caught fire burn, the others go on to the next tick
+                int s = active[i];
+                if (status[s] != IN_PLAY) {
+                    continue;
+                }
+                spreadNanos[s] += spreadShare;
+                if (isSet(fire, s, position[s])) {
+                    status[s] = (byte) SimulationResult.Outcome.BURNED.ordinal();
+                } else if (++ticks[s] == ShipBots.MAX_ITERATIONS) {
+                    status[s] = (byte) SimulationResult.Outcome.TIMEOUT.ordinal();
+                }
+            }
+
+            long tickShare = (System.nanoTime() - tickStart) / activeCount;
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) { //compaction: the decided trials leave the active list, and their slots take the next trials
+                int s = active[i];
+                wallNanos[s] += tickShare;
+                if (status[s] == IN_PLAY) {
+                    active[kept++] = s;
+                    continue;
+                }
+                results[trial[s]] = new SimulationResult(OUTCOMES[status[s]], ticks[s], 0, 0, 0, burningCount[s], wallNanos[s], 0, spreadNanos[s]);
+                if (next < layouts.length) {
+                    load(s, next, layouts[next], fireSeeds[next]);
+                    next++;
+                    active[kept++] = s;
+                }
+            }
+            activeCount = kept;
+        }
+        return results;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+    public int getCols() {
+        return cols;
+    }
+    public int getSlots() {
+        return slots;
+    }
+
+    private void load(int s, int t, ShipGenerator layout, long fireSeed) { //starts trial 't' in slot s, as ShipBots.runSimulation starts it
+        ShipGrid ship = layout.getShip();
+        if (ship.getRows() != rows || ship.getCols() != cols) {
+            throw new IllegalArgumentException("Cannot run a " + ship.getRows() + "x" + ship.getCols() + " ship in a " + rows + "x" + cols + " batch");
+        }
+        ship.writeOpenPlane(LongBuffer.wrap(open, s * words, words));
+        Arrays.fill(fire, s * words, (s + 1) * words, 0L);
+        Arrays.fill(visited, s * words, (s + 1) * words, 0L);
+        Arrays.fill(burningNeighbors, s * size, (s + 1) * size, (byte) 0);
+        frontierSize[s] = 0;
+        burningCount[s] = 0;
+        dense[s] = false;
+        random[s] = RandomStream.of(fireSeed); //the stream SimulationContext.newShipBots gives the same trial
+        trial[s] = t;
+        position[s] = layout.getBotCell();
+        button[s] = layout.getButtonCell();
+        ticks[s] = 0;
+        status[s] = IN_PLAY;
+        queueHead[s] = 0;
+        queueTail[s] = 0;
+        enqueue(s, position[s]); //StandardPolicy.start
+        wallNanos[s] = 0;
+        spreadNanos[s] = 0;
+        ignite(s, layout.getFireCell());
+    }
+
+    private byte move(int s) { //StandardPolicy.BOT_ONE's move: the earliest queued cell, and every open neighbor of it not queued before
+        if (queueHead[s] == queueTail[s]) {
+            return (byte) SimulationResult.Outcome.STUCK.ordinal();
+        }
+        int cell = queue[s * size + queueHead[s]++];
+        position[s] = cell;
+        if (cell == button[s] && !isSet(fire, s, cell)) {
+            return (byte) SimulationResult.Outcome.SUCCESS.ordinal();
+        }
+        for (int mask = openNeighborMask(s, cell); mask != 0; mask &= mask - 1) {
+            int neighbor = neighbor(cell, Integer.numberOfTrailingZeros(mask));
+            if (!isSet(visited, s, neighbor)) {
+                enqueue(s, neighbor);
+            }
+        }
+        return IN_PLAY;
+    }
+
+    private void enqueue(int s, int cell) { //queues 'cell' and marks it visited
+        visited[s * words + (cell >>> 6)] |= 1L << cell;
+        queue[s * size + queueTail[s]++] = cell;
+    }
+
+    //the fire of slot s below is FireEngine's step with the slot's offsets added to every index, the ignitions are decided by FireKernel
+
+    private void ignite(int s, int cell) {
+        fire[s * words + (cell >>> 6)] |= 1L << cell;
+        burningCount[s]++;
+        int base = s * size;
+        burningNeighbors[base + cell - stride]++;
+        burningNeighbors[base + cell + stride]++;
+        burningNeighbors[base + cell - 1]++;
+        burningNeighbors[base + cell + 1]++;
+        frontier[base + frontierSize[s]++] = cell;
+    }
+
+    private void step(int s) {
+        dense[s] = FireKernel.useDense(dense[s], frontierSize[s], words);
+        int ignitedCount = dense[s] ? denseStep(s) : frontierStep(s);
+        for (int i = 0; i < ignitedCount; i++) {
+            ignite(s, ignited[i]);
+        }
+        pruneFrontier(s);
+    }
+
+    private int frontierStep(int s) { //every open, not burning neighbor of the frontier once, drawn for in the order FireEngine finds them
+        int base = s * size;
+        int candidateCount = 0;
+        for (int i = 0; i < frontierSize[s]; i++) {
+            int fireCell = frontier[base + i];
+            for (int mask = openNeighborMask(s, fireCell); mask != 0; mask &= mask - 1) {
+                int neighbor = neighbor(fireCell, Integer.numberOfTrailingZeros(mask));
+                if (!isSet(fire, s, neighbor) && (candidateBits[neighbor >>> 6] & 1L << neighbor) == 0) {
+                    candidateBits[neighbor >>> 6] |= 1L << neighbor;
+                    candidates[candidateCount++] = neighbor;
+                }
+            }
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            candidateBits[candidates[i] >>> 6] = 0;
+        }
+        return FireKernel.drawCandidates(candidates, candidateCount, burningNeighbors, base, igniteProbability, random[s], draws, ignited, 0);
+    }
+
+    private int denseStep(int s) { //FireEngine.denseStep on the slot's planes, fills 'ignited' in cell order
+        int offset = s * words;
+        int ignitedCount = 0;
+        for (int word = 0; word < words; word++) {
+            int base = word << 6;
+            ignitedCount = FireKernel.denseWord(base, open[offset + word], fire[offset + word],
+                    ShipGrid.window(fire, offset, words, base - stride), ShipGrid.window(fire, offset, words, base + stride),
+                    ShipGrid.window(fire, offset, words, base - 1), ShipGrid.window(fire, offset, words, base + 1),
+                    igniteProbability, random[s], draws, ignited, ignitedCount);
+        }
+        return ignitedCount;
+    }
+
+    private void pruneFrontier(int s) {
+        int base = s * size;
+        int kept = 0;
+        for (int i = 0; i < frontierSize[s]; i++) {
+            int cell = frontier[base + i];
+            if (Integer.bitCount(openNeighborMask(s, cell)) > burningNeighbors[base + cell]) {
+                frontier[base + kept++] = cell;
+            }
+        }
+        frontierSize[s] = kept;
+    }
+
+    //ShipGrid's bit queries on the planes of slot s
+
+    private boolean isSet(long[] plane, int s, int cell) {
+        return (plane[s * words + (cell >>> 6)] & (1L << cell)) != 0;
+    }
+
+    private int bit(long[] plane, int s, int cell) {
+        return (int) (plane[s * words + (cell >>> 6)] >>> cell) & 1;
+    }
+
+    private int openNeighborMask(int s, int cell) { //bit 0 = up, bit 1 = down, bit 2 = left, bit 3 = right, as ShipGrid's
+        return bit(open, s, cell - stride) | bit(open, s, cell + stride) << 1 | bit(open, s, cell - 1) << 2 | bit(open, s, cell + 1) << 3;
+    }
+
+    private int neighbor(int cell, int direction) {
+        switch (direction) {
+            case 0: return cell - stride;
+            case 1: return cell + stride;
+            case 2: return cell - 1;
+            default: return cell + 1;
+        }
+    }
+
+    public static void main(String[] args) {
+        //usage: java BatchSimulation [trials] [q] [slots] [seed] [--verify]
+        //runs 'trials' Bot One trials on 100x100 ships through the batch and then one ShipBots at a time, and compares the throughput.
+        //--verify also checks that every trial ended the same way after the same number of ticks in both
+        int trials = args.length > 0 && !args[0].startsWith("--") ? Integer.parseInt(args[0]) : 500;
+        double q = args.length > 1 && !args[1].startsWith("--") ? Double.parseDouble(args[1]) : 0.3;
+        int slots = args.length > 2 && !args[2].startsWith("--") ? Integer.parseInt(args[2]) : 64;
+        long seed = args.length > 3 && !args[3].startsWith("--") ? Long.parseLong(args[3]) : 1L;
+        boolean verify = Arrays.asList(args).contains("--verify");
+
+        ShipGenerator[] layouts = new ShipGenerator[trials];
+        long[] fireSeeds = new long[trials];
+        for (int t = 0; t < trials; t++) {
+            long layoutSeed = ExperimentRunner.trialSeed(seed, t);
+            layouts[t] = new ShipGenerator(100, 100, layoutSeed);
+            fireSeeds[t] = ExperimentRunner.trialSeed(layoutSeed, 1);
+        }
+
+        long start = System.nanoTime();
+        SimulationResult[] batched = new BatchSimulation(100, 100, slots).run(layouts, q, fireSeeds);
+        long batchNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        SimulationResult[] single = new SimulationResult[trials];
+        SimulationContext context = SimulationContext.forCurrentThread();
+        for (int t = 0; t < trials; t++) {
+            ShipBots shipBots = context.newShipBots(layouts[t], q, fireSeeds[t]);
+            shipBots.setVerbose(false);
+            single[t] = shipBots.botOneSimulation();
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        System.out.printf("%d Bot One trials, q = %.2f: batch of %d slots %.0f trials/s, one ShipBots at a time %.0f trials/s (%.2fx)%n",
+                trials, q, slots, trials / (batchNanos / 1e9), trials / (singleNanos / 1e9), (double) singleNanos / batchNanos);
+        if (verify) {
+            int mismatches = 0;
+            for (int t = 0; t < trials; t++) {
+                if (batched[t].getOutcome() != single[t].getOutcome() || batched[t].getTicks() != single[t].getTicks()
+                        || batched[t].getPeakFire() != single[t].getPeakFire()) {
+                    mismatches++;
+                }
+            }
+            System.out.println(mismatches == 0 ? "Every trial matches ShipBots." : mismatches + " trials do NOT match ShipBots!");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.*;
+
+//bidirectional A* over the ship grid: one A* grows from the start towards the goal, one from the goal backwards towards the start,
+//and the search stops once the two sides together cannot improve the best path found where they meet. Same contract as SearchEngine.search
+//
+//both sides use the balanced potential p(v) = (h(v, goal) - h(v, start)) / 2 (forward) and -p(v) (backward), with h the Manhattan distance.
+//It is consistent for both directions, so each side is an ordinary A*, and the sum of the two smallest keys bounds every path not found yet.
+//keys are kept doubled so they stay integers
+public class BidirectionalSearch {
+    private static final int FORWARD = 0, BACKWARD = 1;
+    //fields of a cell's record in cells[side]: STAMP is epoch once that side reached the cell and -epoch once it expanded it, PARENT (the
+    //cell it was reached from on that side) and COST (steps from that side's root) are only valid when STAMP is one of the two
+    private static final int STAMP = 0, PARENT = 1, COST = 2;
+
+    private final ShipGrid grid; //ship being searched, cells are the padded indices of ShipGrid
+    private final CellTable[] cells = new CellTable[2];
+    private final IntHeap[] open = {new IntHeap(), new IntHeap()}; //per side, cells ordered by 2 * (cost + potential)
+    private int epoch;
+    private int expansions; //number of cells expanded by the last search, both sides together
+
+    public BidirectionalSearch(ShipGrid grid) {
+        this.grid = grid;
+        for (int side = 0; side < 2; side++) {
+            cells[side] = CellTable.create(grid.size(), 3);
+        }
+    }
+
+    public int getExpansions() {
+        return expansions;
+    }
+
+    //finds a shortest path from startCell to goalCell that only steps onto open cells accepted by 'filter' (the start cell itself is never checked)
+    //returns the path cells without the start cell and with the goal cell, or null if the goal cannot be reached
+    public int[] search(int startCell, int goalCell, SearchEngine.CellFilter filter) {
+        nextEpoch();
+        expansions = 0;
+        if (startCell == goalCell) {
+            return new int[0];
+        }
+        if (!filter.canEnter(goalCell)) { //the last step enters the goal
+            return null;
+        }
+        int[] roots = {startCell, goalCell};
+        for (int side = 0; side < 2; side++) {
+            open[side].clear();
+            cells[side].set(roots[side], STAMP, epoch);
+            cells[side].set(roots[side], PARENT, -1);
+            cells[side].set(roots[side], COST, 0);
+            open[side].push(roots[side], key(side, roots[side], 0, startCell, goalCell));
+        }
+
+        int best = Integer.MAX_VALUE; //length of the best path through a cell seen by both sides so far
+        int meeting = -1;
+        //any path not found yet is at least (smallest forward key + smallest backward key) / 2 long
+        while (!open[FORWARD].isEmpty() && !open[BACKWARD].isEmpty()
+                && (long) open[FORWARD].peekKey() + open[BACKWARD].peekKey() < 2L * best) {
+            int side = open[FORWARD].size() <= open[BACKWARD].size() ? FORWARD : BACKWARD; //grow the smaller frontier
+            CellTable own = cells[side], other = cells[1 - side];
+            int cell = open[side].pop();
+            if (own.get(cell, STAMP) == -epoch) { //stale heap entry
+                continue;
+            }
+            own.set(cell, STAMP, -epoch);
+            expansions++;
+
+            int nextCost = own.get(cell, COST) + 1;
+            for (int mask = grid.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+                int neighbor = grid.neighbor(cell, Integer.numberOfTrailingZeros(mask));
+                int stamp = own.get(neighbor, STAMP);
+                if (stamp == -epoch || (stamp == epoch && own.get(neighbor, COST) <= nextCost)) {
+                    continue;
+                }
+                //forward, 'neighbor' is entered. Backward, 'neighbor' is the cell the step into 'cell' starts from, so it is entered later
+                //by the path unless it is the start itself (the goal side cells were all checked when they were reached)
+                if (side == FORWARD ? !filter.canEnter(neighbor) : neighbor != startCell && !filter.canEnter(neighbor)) {
+                    continue;
+                }
+                own.set(neighbor, STAMP, epoch);
+                own.set(neighbor, PARENT, cell);
+                own.set(neighbor, COST, nextCost);
+                open[side].push(neighbor, key(side, neighbor, nextCost, startCell, goalCell));
+                int otherStamp = other.get(neighbor, STAMP);
+                if ((otherStamp == epoch || otherStamp == -epoch) && nextCost + other.get(neighbor, COST) < best) {
+                    best = nextCost + other.get(neighbor, COST);
+                    meeting = neighbor;
+                }
+            }
+        }
+
+        return meeting == -1 ? null : rebuildPath(meeting, best);
+    }
+
+    private int[] rebuildPath(int meeting, int length) { //forward parents from the meeting cell back to the start, backward parents on to the goal
+        int[] path = new int[length];
+        int forwardSteps = cells[FORWARD].get(meeting, COST);
+        int cell = meeting;
+        for (int i = forwardSteps - 1; i >= 0; i--) {
+            path[i] = cell;
+            cell = cells[FORWARD].get(cell, PARENT);
+        }
+        cell = meeting;
+        for (int i = forwardSteps; i < length; i++) {
+            cell = cells[BACKWARD].get(cell, PARENT);
+            path[i] = cell;
+        }
+        return path;
+    }
+
+    private int key(int side, int cell, int cellCost, int startCell, int goalCell) { //2 * (cost + potential) of 'cell' on 'side'
+        int potential = grid.manhattan(cell, goalCell) - grid.manhattan(cell, startCell);
+        return 2 * cellCost + (side == FORWARD ? potential : -potential);
+    }
+
+    private void nextEpoch() { //the two sides share the epoch, so both tables wrap around on the same search
+        int next = epoch;
+        for (int side = 0; side < 2; side++) {
+            next = cells[side].nextEpoch(epoch);
+        }
+        epoch = next;
+    }
+}
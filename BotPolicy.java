@@ -0,0 +1,19 @@
+//how a bot moves through the ship. ShipBots.runSimulation runs every policy in the same loop: move(), spread the fire,
+//fail if the bot's cell burns, advance(), and again until the policy decides the outcome or maxIterations is reached
+public interface BotPolicy {
+    void start(ShipBots simulation); //called once before the first tick, the ship's visited plane and the simulation's queue are already cleared
+
+    //the bot's move for this tick, before the fire spreads. Returns the outcome if it is decided (SUCCESS, BURNED or STUCK), null to go on
+    SimulationResult.Outcome move(ShipBots simulation);
+
+    //called after the fire spread if the bot survived it, returns false when the bot has nowhere left to go
+    default boolean advance(ShipBots simulation) {
+        return true;
+    }
+
+    //true if the policy is sure to win a trial TrialOracle rates WON: it plans shortest paths to the button and only gives up on one that the fire
+    //gets next to, so ExperimentRunner may skip the simulation. Every policy loses IMPOSSIBLE trials, those are skipped regardless
+    default boolean plansShortestPaths() {
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.*;
+
+//per cell records of a few ints (e.g. a search's parent, cost and epoch stamp), the state an engine keeps for every cell of its grid.
+//up to FLAT_CELLS cells the records sit side by side in one array allocated up front, as fast as separate int[] arrays per field.
+//above that the records are kept in pages of PAGE_CELLS consecutive cells, only allocated when one of their cells is first written, so an
+//engine on a huge ship pays for the region its searches reached instead of several int[grid.size()] arrays before the first search.
+//a field of a cell that was never written reads as its default
+public abstract class CellTable {
+    static final int FLAT_CELLS = 1 << 22; //about a 2000 x 2000 ship, whose 4 int records take 64 MB
+
+    final int fields; //ints per record
+    final int[] defaults; //defaults[field] = value of 'field' in a cell that was never written
+
+    private CellTable(int[] defaults) {
+        this.fields = defaults.length;
+        this.defaults = defaults.clone();
+    }
+
+    public static CellTable create(int cells, int fields) { //every field defaults to 0
+        return create(cells, new int[fields]);
+    }
+
+    public static CellTable create(int cells, int[] defaults) {
+        return cells <= FLAT_CELLS ? new Flat(cells, defaults) : new Paged(cells, defaults);
+    }
+
+    public abstract int get(int cell, int field);
+
+    public abstract void set(int cell, int field, int value);
+
+    public abstract void clear(); //every field of every cell back to its default
+
+    //the epoch after 'epoch' for a table whose records are stamped with the epoch of the search that wrote them (or its negation):
+    //epoch + 1, or 1 once the stamps would wrap around, after clearing the table so no stamp of an old epoch can match a new one
+    public final int nextEpoch(int epoch) {
+        if (epoch + 1 == Integer.MAX_VALUE) {
+            clear();
+            return 1;
+        }
+        return epoch + 1;
+    }
+
+    private static final class Flat extends CellTable {
+        private final int[] records; //the record of 'cell' starts at cell * fields
+
+        Flat(int cells, int[] defaults) {
+            super(defaults);
+            this.records = new int[cells * fields];
+            clear();
+        }
+
+        public int get(int cell, int field) {
+            return records[cell * fields + field];
+        }
+
+        public void set(int cell, int field, int value) {
+            records[cell * fields + field] = value;
+        }
+
+        public void clear() {
+            for (int i = 0; i < records.length; i += fields) {
+                System.arraycopy(defaults, 0, records, i, fields);
+            }
+        }
+    }
+
+    private static final class Paged extends CellTable {
+        private static final int PAGE_BITS = 8; //256 cells, a short stretch of a row of a huge ship, so a search only pays for about the cells around it
+        private static final int PAGE_CELLS = 1 << PAGE_BITS;
+        private static final int PAGE_MASK = PAGE_CELLS - 1;
+
+        private final int[][] pages; //pages[cell >>> PAGE_BITS], the records of its cells side by side, null until first written
+        private final int[] template; //a fresh page, copied into every newly allocated one
+
+        Paged(int cells, int[] defaults) {
+            super(defaults);
+            this.pages = new int[(cells + PAGE_MASK) >>> PAGE_BITS][];
+            this.template = new int[PAGE_CELLS * fields];
+            for (int i = 0; i < template.length; i += fields) {
+                System.arraycopy(defaults, 0, template, i, fields);
+            }
+        }
+
+        public int get(int cell, int field) {
+            int[] page = pages[cell >>> PAGE_BITS];
+            return page == null ? defaults[field] : page[(cell & PAGE_MASK) * fields + field];
+        }
+
+        public void set(int cell, int field, int value) {
+            int[] page = pages[cell >>> PAGE_BITS];
+            if (page == null) {
+                page = pages[cell >>> PAGE_BITS] = template.clone();
+            }
+            page[(cell & PAGE_MASK) * fields + field] = value;
+        }
+
+        public void clear() { //the pages are dropped, the next writes allocate them again
+            Arrays.fill(pages, null);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.*;
+
+//the open cells of a layout compressed into a graph of junctions and corridors. ShipGenerator grows one cell wide corridors, and every
+//open cell with exactly two open neighbors lies inside one: only the other open cells (dead ends, junctions, cells of wider areas) become
+//nodes, and the cells between two nodes become one edge that costs its number of steps. A search on this graph (CorridorPlanner) crosses
+//a corridor in one edge instead of one cell at a time. Like LandmarkIndex it only depends on the open plane and is built once per layout
+//(ShipGenerator.getCorridors), it is never modified.
+//most of a ShipGenerator maze is dead end branches hanging off the loops that loosenShipConfigDeadEnds opened. Peeling off dead ends until
+//only the loops are left gives every node of such a branch a tree parent towards the loops, and a search never has to go down a branch
+//that does not hold its goal: whatever the fire and the bot block, the way back out of a branch is the way in
+public class CorridorGraph {
+    private final ShipGrid grid; //the layout's ship, only read for the Manhattan distance between nodes
+    private final int[] nodeOf; //nodeOf[cell] = node of 'cell', -1 for cells inside a corridor and cells that are not open
+    private final int[] edgeOf; //edgeOf[cell] = edge whose corridor holds 'cell', -1 for nodes and cells that are not open
+    private final int[] offsetOf; //offsetOf[cell] = position of 'cell' in its edge's corridor, counted from the edge's 'from' node
+    private int[] nodeCells = new int[64]; //nodeCells[node] = cell of the node
+    private int nodes;
+
+    //edge e runs from edgeFrom[e] to edgeTo[e] through the corridor cells edgeCells[edgeStart[e] .. edgeStart[e + 1] - 1] (in that order),
+    //so it costs edgeStart[e + 1] - edgeStart[e] + 1 steps. Two neighboring nodes are joined by an edge without corridor cells
+    private int[] edgeFrom = new int[64], edgeTo = new int[64];
+    private int[] edgeStart = new int[65];
+    private int[] edgeCells = new int[64];
+    private int edges;
+
+    //the edges of node n are adjacentEdges[adjacencyStart[n] .. adjacencyStart[n + 1] - 1]
+    private final int[] adjacencyStart;
+    private final int[] adjacentEdges;
+    private final int[] treeParent; //treeParent[node] = the next node towards the loops for a node on a dead end branch, -1 for the others
+
+    public CorridorGraph(ShipGrid grid) {
+        this.grid = grid;
+        this.nodeOf = new int[grid.size()];
+        this.edgeOf = new int[grid.size()];
+        this.offsetOf = new int[grid.size()];
+        Arrays.fill(nodeOf, -1);
+        Arrays.fill(edgeOf, -1);
+
+        for (int cell = 0; cell < grid.size(); cell++) {
+            if (grid.isOpen(cell) && grid.openNeighborCount(cell) != 2) {
+                addNode(cell);
+            }
+        }
+        for (int node = 0; node < nodes; node++) {
+            traceCorridors(grid, node);
+        }
+        for (int cell = 0; cell < grid.size(); cell++) { //a ring of corridor cells without any node, one of its cells becomes a node
+            if (grid.isOpen(cell) && nodeOf[cell] < 0 && edgeOf[cell] < 0) {
+                traceCorridors(grid, addNode(cell));
+            }
+        }
+
+        int[] degree = new int[nodes + 1];
+        for (int e = 0; e < edges; e++) {
+            degree[edgeFrom[e]]++;
+            if (edgeTo[e] != edgeFrom[e]) {
+                degree[edgeTo[e]]++;
+            }
+        }
+        this.adjacencyStart = new int[nodes + 1];
+        for (int node = 0; node < nodes; node++) {
+            adjacencyStart[node + 1] = adjacencyStart[node] + degree[node];
+        }
+        this.adjacentEdges = new int[adjacencyStart[nodes]];
+        int[] filled = Arrays.copyOf(adjacencyStart, nodes);
+        for (int e = 0; e < edges; e++) {
+            adjacentEdges[filled[edgeFrom[e]]++] = e;
+            if (edgeTo[e] != edgeFrom[e]) {
+                adjacentEdges[filled[edgeTo[e]]++] = e;
+            }
+        }
+        this.treeParent = new int[nodes];
+        peelBranches();
+    }
+
+    //peels off nodes with one remaining edge (a self loop counts twice, so loops are never peeled) and makes the node at the other end
+    //their tree parent. The last node of a ship without loops keeps -1 and becomes the root of the whole tree
+    private void peelBranches() {
+        int[] degree = new int[nodes];
+        for (int e = 0; e < edges; e++) {
+            degree[edgeFrom[e]]++;
+            degree[edgeTo[e]]++;
+        }
+        Arrays.fill(treeParent, -1);
+        boolean[] peeled = new boolean[nodes];
+        IntQueue queue = new IntQueue();
+        for (int node = 0; node < nodes; node++) {
+            if (degree[node] <= 1) {
+                queue.add(node);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            peeled[node] = true;
+            for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+                int edge = adjacentEdges[i];
+                int next = edgeFrom[edge] == node ? edgeTo[edge] : edgeFrom[edge];
+                if (!peeled[next]) {
+                    treeParent[node] = next;
+                    if (--degree[next] == 1) {
+                        queue.add(next);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private int addNode(int cell) {
+        if (nodes == nodeCells.length) {
+            nodeCells = Arrays.copyOf(nodeCells, nodes * 2);
+        }
+        nodeOf[cell] = nodes;
+        nodeCells[nodes] = cell;
+        return nodes++;
+    }
+
+    //follows every corridor leaving 'node' to the node at its other end and adds it as an edge, unless it was traced from that end already
+    private void traceCorridors(ShipGrid grid, int node) {
+        int start = nodeCells[node];
+        for (int mask = grid.openNeighborMask(start); mask != 0; mask &= mask - 1) {
+            int cell = grid.neighbor(start, Integer.numberOfTrailingZeros(mask));
+            if (edgeOf[cell] >= 0 || (nodeOf[cell] >= 0 && nodeOf[cell] < node)) {
+                continue; //a corridor that was already traced, or a neighboring node that added the edge between the two
+            }
+            int previous = start;
+            int offset = 0;
+            while (nodeOf[cell] < 0) { //a corridor cell has exactly two open neighbors, the walk goes on through the one it did not come from
+                edgeOf[cell] = edges;
+                offsetOf[cell] = offset++;
+                appendEdgeCell(edgeStart[edges] + offsetOf[cell], cell);
+                int next = cell;
+                for (int around = grid.openNeighborMask(cell); around != 0; around &= around - 1) {
+                    next = grid.neighbor(cell, Integer.numberOfTrailingZeros(around));
+                    if (next != previous) {
+                        break;
+                    }
+                }
+                previous = cell;
+                cell = next;
+            }
+            addEdge(node, nodeOf[cell], offset);
+        }
+    }
+
+    private void appendEdgeCell(int index, int cell) {
+        if (index == edgeCells.length) {
+            edgeCells = Arrays.copyOf(edgeCells, index * 2);
+        }
+        edgeCells[index] = cell;
+    }
+
+    private void addEdge(int from, int to, int corridorCells) {
+        if (edges + 2 > edgeStart.length) {
+            edgeStart = Arrays.copyOf(edgeStart, edgeStart.length * 2);
+            edgeFrom = Arrays.copyOf(edgeFrom, edgeStart.length);
+            edgeTo = Arrays.copyOf(edgeTo, edgeStart.length);
+        }
+        edgeFrom[edges] = from;
+        edgeTo[edges] = to;
+        edgeStart[edges + 1] = edgeStart[edges] + corridorCells;
+        edges++;
+    }
+
+    //the accessors below are what CorridorPlanner searches, nodes and edges are numbered from 0
+
+    int size() { //padded cells of the layout
+        return nodeOf.length;
+    }
+    public int getNodes() {
+        return nodes;
+    }
+    public int getEdges() {
+        return edges;
+    }
+    public int getCorridorCells() { //number of open cells inside corridors, which a search on this graph does not expand
+        return edgeStart[edges];
+    }
+    int nodeCell(int node) {
+        return nodeCells[node];
+    }
+    int nodeOf(int cell) {
+        return nodeOf[cell];
+    }
+    int edgeOf(int cell) {
+        return edgeOf[cell];
+    }
+    int offsetOf(int cell) {
+        return offsetOf[cell];
+    }
+    int from(int edge) {
+        return edgeFrom[edge];
+    }
+    int to(int edge) {
+        return edgeTo[edge];
+    }
+    int length(int edge) { //corridor cells of 'edge', crossing it takes one step more
+        return edgeStart[edge + 1] - edgeStart[edge];
+    }
+    int corridorCell(int edge, int offset) { //the corridor cell at 'offset' from the 'from' node
+        return edgeCells[edgeStart[edge] + offset];
+    }
+    int firstAdjacent(int node) { //the edges of 'node' are adjacentEdge(firstAdjacent(node)) .. adjacentEdge(firstAdjacent(node + 1) - 1)
+        return adjacencyStart[node];
+    }
+    int adjacentEdge(int i) {
+        return adjacentEdges[i];
+    }
+    int treeParent(int node) {
+        return treeParent[node];
+    }
+    ShipGrid getGrid() {
+        return grid;
+    }
+}
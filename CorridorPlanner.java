@@ -0,0 +1,271 @@
+import java.util.*;
+
+//A* over a CorridorGraph: junctions are expanded one at a time and every corridor is crossed in one edge. For every edge the planner
+//keeps the number of its corridor cells the filter rejects, counted the first time a search wants to cross it after a reset and kept up
+//to date from then on, so when the fire or the bot blocks a cell (cellChanged) only that cell's edge is updated and a search never walks
+//a corridor it crossed before to find out.
+//a start or goal inside a corridor is joined to the nodes at both ends of it. The paths are exactly as short as SearchEngine's,
+//with the same contract: without the start cell, with the goal cell, every cell but the start accepted by the filter
+public class CorridorPlanner {
+    private static final int INF = Integer.MAX_VALUE / 2;
+    private static final int FROM_START_BACKWARD = -2, FROM_START_FORWARD = -3; //PARENT_EDGE of a node reached from a start inside a corridor, towards its 'from' / 'to' node
+    //fields of a node's record in 'nodes': COST = steps from the start and PARENT_EDGE = edge the node was reached through (or FROM_START_... / -1
+    //for the start itself), both valid when SEEN == epoch. CLOSED == epoch once the node was expanded, GOAL_BRANCH == epoch for the goal's
+    //node(s) and their tree parents, the only branch nodes a search goes down to
+    private static final int COST = 0, PARENT_EDGE = 1, SEEN = 2, CLOSED = 3, GOAL_BRANCH = 4;
+
+    private CorridorGraph graph;
+    private SearchEngine.CellFilter filter;
+    private long[] passable = new long[0]; //bit per cell, valid for the corridor cells of counted edges
+    private int[] blocked = new int[0]; //blocked[edge] = corridor cells of the edge the filter rejects, the edge can be crossed when it is 0
+    private int[] counted = new int[0]; //counted[edge] == resets when blocked[edge] and the passable bits of its cells are valid
+    private int resets;
+
+    private CellTable nodes = CellTable.create(0, 5); //a record per node of the graph, see COST
+    private int nodeCapacity; //nodes 'nodes' has room for
+    private int epoch;
+    private final IntHeap heap = new IntHeap();
+    private int expansions; //nodes expanded by the last plan
+
+    public CorridorPlanner(CorridorGraph graph, SearchEngine.CellFilter filter) {
+        reset(graph, filter);
+    }
+
+    //starts over on 'graph' with 'filter' in O(1), every edge is counted again when it is first needed. The arrays are only reallocated when they are too small
+    public void reset(CorridorGraph graph, SearchEngine.CellFilter filter) {
+        this.graph = graph;
+        this.filter = filter;
+        int words = (graph.size() + 63) >>> 6;
+        if (passable.length < words) {
+            passable = new long[words];
+        }
+        if (blocked.length < graph.getEdges()) {
+            blocked = new int[graph.getEdges()];
+            counted = new int[graph.getEdges()];
+            resets = 0;
+        }
+        resets++;
+        if (resets == Integer.MAX_VALUE) {
+            Arrays.fill(counted, 0);
+            resets = 1;
+        }
+        if (nodeCapacity < graph.getNodes()) {
+            nodeCapacity = graph.getNodes();
+            nodes = CellTable.create(nodeCapacity, 5);
+            epoch = 0;
+        }
+    }
+
+    public void cellChanged(int cell) { //reads the filter again for a corridor cell of a counted edge and updates that edge's count, nodes are read when they are reached
+        int edge = graph.edgeOf(cell);
+        if (edge < 0 || counted[edge] != resets) {
+            return;
+        }
+        boolean canEnter = filter.canEnter(cell);
+        if (canEnter == isPassable(cell)) {
+            return;
+        }
+        setPassable(cell, canEnter);
+        blocked[edge] += canEnter ? -1 : 1;
+    }
+
+    private int blockedCells(int edge) {
+        if (counted[edge] != resets) {
+            counted[edge] = resets;
+            blocked[edge] = 0;
+            for (int offset = 0; offset < graph.length(edge); offset++) {
+                int cell = graph.corridorCell(edge, offset);
+                boolean canEnter = filter.canEnter(cell);
+                setPassable(cell, canEnter);
+                if (!canEnter) {
+                    blocked[edge]++;
+                }
+            }
+        }
+        return blocked[edge];
+    }
+
+    public int getExpansions() {
+        return expansions;
+    }
+
+    public int[] plan(int start, int goal) {
+        epoch = nodes.nextEpoch(epoch);
+        heap.clear();
+        expansions = 0;
+        if (start == goal) {
+            return new int[0];
+        }
+
+        //the goal's own corridor: steps from the node at either end to the goal, INF when a cell on the way is blocked
+        int goalNode = graph.nodeOf(goal), goalEdge = graph.edgeOf(goal);
+        int goalOffset = goalEdge >= 0 ? graph.offsetOf(goal) : 0;
+        int fromGoalFrom = INF, fromGoalTo = INF;
+        if (goalEdge >= 0) {
+            fromGoalFrom = isClear(goalEdge, 0, goalOffset) ? goalOffset + 1 : INF;
+            fromGoalTo = isClear(goalEdge, goalOffset, graph.length(goalEdge) - 1) ? graph.length(goalEdge) - goalOffset : INF;
+        } else if (goalNode < 0 || !filter.canEnter(goal)) {
+            return null; //not open, or rejected by the filter
+        }
+        if (goalEdge >= 0) {
+            markGoalBranch(graph.from(goalEdge));
+            markGoalBranch(graph.to(goalEdge));
+        } else {
+            markGoalBranch(goalNode);
+        }
+
+        int best = INF, bestNode = -1; //cheapest way to the goal found so far, through bestNode (-1 = straight along the start's corridor)
+        int startNode = graph.nodeOf(start), startEdge = graph.edgeOf(start);
+        int startOffset = startEdge >= 0 ? graph.offsetOf(start) : 0;
+        if (startNode >= 0) {
+            reach(startNode, 0, -1, goal);
+        } else if (startEdge >= 0) {
+            int length = graph.length(startEdge);
+            if (startEdge == goalEdge && (goalOffset < startOffset ? isClear(startEdge, goalOffset, startOffset - 1) : isClear(startEdge, startOffset + 1, goalOffset))) {
+                best = Math.abs(goalOffset - startOffset);
+            }
+            if (isClear(startEdge, 0, startOffset - 1) && filter.canEnter(graph.nodeCell(graph.from(startEdge)))) {
+                reach(graph.from(startEdge), startOffset + 1, FROM_START_BACKWARD, goal);
+            }
+            if (isClear(startEdge, startOffset + 1, length - 1) && filter.canEnter(graph.nodeCell(graph.to(startEdge)))) {
+                reach(graph.to(startEdge), length - startOffset, FROM_START_FORWARD, goal);
+            }
+        } else {
+            return null;
+        }
+
+        while (!heap.isEmpty() && heap.peekKey() < best) {
+            int node = heap.pop();
+            if (nodes.get(node, CLOSED) == epoch) { //stale heap entry
+                continue;
+            }
+            nodes.set(node, CLOSED, epoch);
+            int nodeCost = nodes.get(node, COST);
+            if (node == goalNode) {
+                best = nodeCost;
+                bestNode = node;
+                break;
+            }
+            if (goalEdge >= 0) { //the goal is inside a corridor of this node
+                int viaFrom = graph.from(goalEdge) == node ? fromGoalFrom : INF;
+                int viaTo = graph.to(goalEdge) == node ? fromGoalTo : INF;
+                if (nodeCost + Math.min(viaFrom, viaTo) < best) {
+                    best = nodeCost + Math.min(viaFrom, viaTo);
+                    bestNode = node;
+                }
+            }
+            expansions++;
+
+            for (int i = graph.firstAdjacent(node), end = graph.firstAdjacent(node + 1); i < end; i++) {
+                int edge = graph.adjacentEdge(i);
+                int next = graph.from(edge) == node ? graph.to(edge) : graph.from(edge);
+                if (next == node || nodes.get(next, CLOSED) == epoch) {
+                    continue; //a loop back to the node is never on a shortest path
+                }
+                if (graph.treeParent(next) == node && nodes.get(next, GOAL_BRANCH) != epoch) {
+                    continue; //down a dead end branch without the goal
+                }
+                if (blockedCells(edge) > 0 || !filter.canEnter(graph.nodeCell(next))) {
+                    continue;
+                }
+                reach(next, nodeCost + graph.length(edge) + 1, edge, goal);
+            }
+        }
+        if (best >= INF) {
+            return null;
+        }
+        return rebuildPath(start, startEdge, startOffset, goal, goalEdge, goalOffset, best, bestNode, fromGoalFrom, fromGoalTo);
+    }
+
+    private void markGoalBranch(int node) { //marks 'node' and its tree parents up to the loops
+        while (node >= 0 && nodes.get(node, GOAL_BRANCH) != epoch) {
+            nodes.set(node, GOAL_BRANCH, epoch);
+            node = graph.treeParent(node);
+        }
+    }
+
+    private void reach(int node, int nodeCost, int edge, int goal) {
+        if (nodes.get(node, SEEN) == epoch && nodes.get(node, COST) <= nodeCost) {
+            return;
+        }
+        nodes.set(node, SEEN, epoch);
+        nodes.set(node, COST, nodeCost);
+        nodes.set(node, PARENT_EDGE, edge);
+        heap.push(node, nodeCost + graph.getGrid().manhattan(graph.nodeCell(node), goal)); //a corridor is never shorter than the Manhattan distance across it
+    }
+
+    //the path walked backwards from the goal to the start into an array of exactly 'steps' cells, which is then filled from its end
+    private int[] rebuildPath(int start, int startEdge, int startOffset, int goal, int goalEdge, int goalOffset, int steps, int node,
+                              int fromGoalFrom, int fromGoalTo) {
+        int[] path = new int[steps];
+        int i = steps;
+        if (node < 0) { //straight along the start's corridor
+            int direction = goalOffset > startOffset ? -1 : 1;
+            for (int offset = goalOffset; offset != startOffset; offset += direction) {
+                path[--i] = graph.corridorCell(goalEdge, offset);
+            }
+            return path;
+        }
+        if (goalEdge >= 0) { //from the node into the goal's corridor
+            boolean viaFrom = graph.from(goalEdge) == node && (graph.to(goalEdge) != node || fromGoalFrom <= fromGoalTo);
+            if (viaFrom) {
+                for (int offset = goalOffset; offset >= 0; offset--) {
+                    path[--i] = graph.corridorCell(goalEdge, offset);
+                }
+            } else {
+                for (int offset = goalOffset; offset < graph.length(goalEdge); offset++) {
+                    path[--i] = graph.corridorCell(goalEdge, offset);
+                }
+            }
+        }
+        while (nodes.get(node, PARENT_EDGE) != -1) {
+            path[--i] = graph.nodeCell(node);
+            int edge = nodes.get(node, PARENT_EDGE);
+            if (edge == FROM_START_BACKWARD) { //the start's corridor between the 'from' node and the start
+                for (int offset = 0; offset < startOffset; offset++) {
+                    path[--i] = graph.corridorCell(startEdge, offset);
+                }
+                break;
+            }
+            if (edge == FROM_START_FORWARD) {
+                for (int offset = graph.length(startEdge) - 1; offset > startOffset; offset--) {
+                    path[--i] = graph.corridorCell(startEdge, offset);
+                }
+                break;
+            }
+            if (graph.to(edge) == node) { //crossed from 'from' to 'to'
+                for (int offset = graph.length(edge) - 1; offset >= 0; offset--) {
+                    path[--i] = graph.corridorCell(edge, offset);
+                }
+                node = graph.from(edge);
+            } else {
+                for (int offset = 0; offset < graph.length(edge); offset++) {
+                    path[--i] = graph.corridorCell(edge, offset);
+                }
+                node = graph.to(edge);
+            }
+        }
+        return path;
+    }
+
+    private boolean isClear(int edge, int fromOffset, int toOffset) { //true if the filter accepts every corridor cell from 'fromOffset' to 'toOffset' (inclusive)
+        for (int offset = fromOffset; offset <= toOffset; offset++) {
+            if (!filter.canEnter(graph.corridorCell(edge, offset))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPassable(int cell) {
+        return (passable[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private void setPassable(int cell, boolean canEnter) {
+        if (canEnter) {
+            passable[cell >>> 6] |= 1L << cell;
+        } else {
+            passable[cell >>> 6] &= ~(1L << cell);
+        }
+    }
+}
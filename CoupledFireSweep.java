@@ -0,0 +1,152 @@
+import java.util.*;
+
+//spreads the fire for up to 64 q values at once on one layout, with coupled random numbers: every (cell, tick) gets a single uniform draw
+//and each q value ignites the cell when that draw is below its own 1 - (1 - q)^K. Higher q values therefore burn (tick by tick) a superset
+//of what lower ones burn on the same draws, which makes comparisons across q far less noisy, and one pass over the fire serves every q value.
+//the result is one FireSchedule per q value, which FireEngine replays for every bot
+public class CoupledFireSweep {
+    private final ShipGrid grid; //layout the fire spreads on, only its open plane is read
+    private final int fireCell; //initial fire, burning in every layer
+    private final int layers; //number of q values, layer l belongs to qValues[l]
+    private final long allLayers; //mask with one bit per layer
+    private final double[][] igniteProbability; //igniteProbability[l][K] = 1 - (1 - q_l)^K
+    private final long seed; //seed of the counter based draws
+    private final long[] burning; //burning[cell] has bit l set when 'cell' burns in layer l
+
+    private int[] frontier = new int[16]; //cells burning in some layer with an open neighbor that does not burn in that layer
+    private int frontierSize;
+    private int[] candidates = new int[16]; //scratch list of the cells drawn for in the current tick
+    private long[] candidateIgnite = new long[16]; //layers in which the matching candidate ignites this tick
+    private final int[] candidateTick; //candidateTick[cell] == tick when 'cell' already is a candidate this tick
+
+    private final int[][] layerCells; //per layer, the ignited cells in ignition order
+    private final int[] layerCount;
+    private final int[][] layerTickStart; //per layer, the FireSchedule tickStart array being built
+    private int ticks;
+
+    public CoupledFireSweep(ShipGrid grid, int fireCell, double[] qValues, long seed) {
+        if (qValues.length == 0 || qValues.length > 64) {
+            throw new IllegalArgumentException("Between 1 and 64 q values are supported, got " + qValues.length);
+        }
+        this.grid = grid;
+        this.fireCell = fireCell;
+        this.layers = qValues.length;
+        this.allLayers = layers == 64 ? -1L : (1L << layers) - 1;
+        this.seed = seed;
+        this.igniteProbability = new double[layers][5];
+        for (int l = 0; l < layers; l++) {
+            for (int K = 0; K <= 4; K++) {
+                igniteProbability[l][K] = 1 - Math.pow(1 - qValues[l], K);
+            }
+        }
+        this.burning = new long[grid.size()];
+        this.candidateTick = new int[grid.size()];
+        this.layerCells = new int[layers][16];
+        this.layerCount = new int[layers];
+        this.layerTickStart = new int[layers][16];
+    }
+
+    //runs the coupled spread until no layer can spread any further, or for at most 'maxTicks' ticks, and returns one schedule per q value
+    public FireSchedule[] run(int maxTicks) {
+        burning[fireCell] = allLayers;
+        frontier[frontierSize++] = fireCell;
+        while (frontierSize > 0 && ticks < maxTicks) {
+            step();
+        }
+
+        FireSchedule[] schedules = new FireSchedule[layers];
+        for (int l = 0; l < layers; l++) {
+            int[] tickStart = Arrays.copyOf(layerTickStart[l], ticks + 2);
+            tickStart[ticks + 1] = layerCount[l];
+            schedules[l] = new FireSchedule(Arrays.copyOf(layerCells[l], layerCount[l]), tickStart, ticks);
+        }
+        return schedules;
+    }
+
+    private void step() {
+        ticks++;
+        for (int l = 0; l < layers; l++) {
+            layerTickStart[l] = grow(layerTickStart[l], ticks + 2);
+            layerTickStart[l][ticks] = layerCount[l];
+        }
+
+        //collect every open neighbor of the frontier that does not burn in some layer its neighbor burns in, exactly once
+        int candidateCount = 0;
+        for (int i = 0; i < frontierSize; i++) {
+            int cell = frontier[i];
+            for (int mask = grid.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+                int neighbor = grid.neighbor(cell, Integer.numberOfTrailingZeros(mask));
+                if ((burning[cell] & ~burning[neighbor]) != 0 && candidateTick[neighbor] != ticks) {
+                    candidateTick[neighbor] = ticks;
+                    candidates = grow(candidates, candidateCount + 1);
+                    candidates[candidateCount++] = neighbor;
+                }
+            }
+        }
+
+        //one draw per candidate, shared by every layer. All draws happen before any cell ignites, like FireEngine.step()
+        candidateIgnite = grow(candidateIgnite, candidateCount);
+        for (int i = 0; i < candidateCount; i++) {
+            int cell = candidates[i];
+            long up = burning[cell - grid.getStride()], down = burning[cell + grid.getStride()], left = burning[cell - 1], right = burning[cell + 1];
+            double u = uniform(cell, ticks);
+            long ignite = 0;
+            for (long open = (up | down | left | right) & ~burning[cell]; open != 0; open &= open - 1) {
+                int l = Long.numberOfTrailingZeros(open);
+                int K = (int) ((up >>> l & 1) + (down >>> l & 1) + (left >>> l & 1) + (right >>> l & 1));
+                if (u < igniteProbability[l][K]) {
+                    ignite |= 1L << l;
+                }
+            }
+            candidateIgnite[i] = ignite;
+        }
+
+        for (int i = 0; i < candidateCount; i++) {
+            long ignite = candidateIgnite[i];
+            if (ignite == 0) {
+                continue;
+            }
+            int cell = candidates[i];
+            if (burning[cell] == 0) {
+                frontier = grow(frontier, frontierSize + 1);
+                frontier[frontierSize++] = cell;
+            }
+            burning[cell] |= ignite;
+            for (long mask = ignite; mask != 0; mask &= mask - 1) {
+                int l = Long.numberOfTrailingZeros(mask);
+                layerCells[l] = grow(layerCells[l], layerCount[l] + 1);
+                layerCells[l][layerCount[l]++] = cell;
+            }
+        }
+
+        //drop the cells whose every layer is surrounded by fire and walls from the frontier
+        int kept = 0;
+        for (int i = 0; i < frontierSize; i++) {
+            int cell = frontier[i];
+            boolean spreading = false;
+            for (int mask = grid.openNeighborMask(cell); mask != 0 && !spreading; mask &= mask - 1) {
+                spreading = (burning[cell] & ~burning[grid.neighbor(cell, Integer.numberOfTrailingZeros(mask))]) != 0;
+            }
+            if (spreading) {
+                frontier[kept++] = cell;
+            }
+        }
+        frontierSize = kept;
+    }
+
+    private double uniform(int cell, int tick) { //counter based uniform in [0, 1) for (seed, cell, tick), a SplitMix64 finalizer over the packed counter
+        long z = seed + (((long) tick << 32) | cell) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    private static int[] grow(int[] array, int needed) {
+        return needed <= array.length ? array : Arrays.copyOf(array, Math.max(needed, array.length * 2));
+    }
+
+    private static long[] grow(long[] array, int needed) {
+        return needed <= array.length ? array : Arrays.copyOf(array, Math.max(needed, array.length * 2));
+    }
+}
@@ -0,0 +1,627 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+public class ExperimentRunner { //runs independent ShipGenerator + ShipBots trials for every (bot, q) pair across a ForkJoinPool and tallies the outcomes
+    private final int rows, cols; //dimensions of every generated ship
+    private final int trials; //number of trials to run for each (bot, q) pair
+    private int firstTrial = 0; //trial number of the first of them, a shard of a larger sweep (see SweepCoordinator) starts further in
+    private final int[] bots; //bot numbers (1 to 5) to simulate
+    private final double[] qValues; //flammability values to simulate
+    private final long masterSeed; //every trial seed is derived from this, so the same master seed always reproduces the same run
+    private final TrialCounter[][] counters; //counters[botIndex][qIndex] holds the outcomes for that (bot, q) pair
+    private ShipBots.PlannerMode plannerMode = ShipBots.PlannerMode.FULL_SEARCH; //planner used by Bots 2-4 in every trial
+    private ShipLayoutCache layoutCache; //every trial layout is generated once and copied for each (bot, q) pair
+    private boolean coupledFire = false; //when true, each trial runs one CoupledFireSweep over every q value and all the bots replay its schedules
+    private boolean oracle = false; //when true, every trial is first classified by a TrialOracle and the trials it settles are not simulated
+    private Path replayDirectory; //when not null, every failed trial is rerun with a replay log recorded into this directory
+    private int batchSlots = 0; //when above 0, Bot One's trials run through a BatchSimulation with this many slots, see runBatch
+    private int budgetExpansions = 0; //when above 0, every trial plans with a fixed PlanningBudget of this many expansions per tick
+    private long budgetNanos = 0; //when above 0, every trial plans with an adaptive PlanningBudget of this many nanoseconds per tick
+
+    public static class TrialCounter { //outcome tally and metric histograms for one (bot, q) pair, safe to update from several worker threads
+        private final AtomicInteger successes = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicIntegerArray outcomes = new AtomicIntegerArray(SimulationResult.Outcome.values().length); //count per outcome of the simulated trials, by ordinal
+        private final AtomicIntegerArray verdicts = new AtomicIntegerArray(TrialOracle.Verdict.values().length); //trials per oracle verdict, by ordinal
+        private final AtomicIntegerArray verdictSuccesses = new AtomicIntegerArray(TrialOracle.Verdict.values().length); //successes among them
+        private final AtomicInteger skipped = new AtomicInteger(); //trials the oracle settled, they are counted as successes or failures but have no metrics
+        private final Histogram ticks = new Histogram();
+        private final Histogram expansions = new Histogram();
+        private final Histogram replans = new Histogram();
+        private final Histogram peakFire = new Histogram();
+        private final Histogram generationNanos = new Histogram(); //time to get the trial's layout (generating it, or copying it from the cache)
+        private final Histogram planningNanos = new Histogram();
+        private final Histogram spreadNanos = new Histogram();
+        private final Histogram wallNanos = new Histogram();
+
+        public void record(SimulationResult result, long layoutNanos) {
+            record(null, result, layoutNanos);
+        }
+
+        //'verdict' is the oracle's verdict on the trial (null when the oracle is off), 'result' is null when the trial was settled by it and not simulated
+        public void record(TrialOracle.Verdict verdict, SimulationResult result, long layoutNanos) {
+            boolean success = result == null ? verdict == TrialOracle.Verdict.WON : result.isSuccess();
+            if (success) {
+                successes.incrementAndGet();
+            } else {
+                failures.incrementAndGet();
+            }
+            if (verdict != null) {
+                verdicts.incrementAndGet(verdict.ordinal());
+                if (success) {
+                    verdictSuccesses.incrementAndGet(verdict.ordinal());
+                }
+            }
+            if (result == null) {
+                skipped.incrementAndGet();
+                return;
+            }
+            outcomes.incrementAndGet(result.getOutcome().ordinal());
+            ticks.record(result.getTicks());
+            expansions.record(result.getExpansions());
+            replans.record(result.getReplans());
+            peakFire.record(result.getPeakFire());
+            generationNanos.record(layoutNanos);
+            planningNanos.record(result.getPlanningNanos());
+            spreadNanos.record(result.getSpreadNanos());
+            wallNanos.record(result.getWallNanos());
+        }
+
+        public int getOutcomeCount(SimulationResult.Outcome outcome) {
+            return outcomes.get(outcome.ordinal());
+        }
+        public int getVerdictCount(TrialOracle.Verdict verdict) {
+            return verdicts.get(verdict.ordinal());
+        }
+        public int getVerdictSuccesses(TrialOracle.Verdict verdict) {
+            return verdictSuccesses.get(verdict.ordinal());
+        }
+        public int getSkipped() {
+            return skipped.get();
+        }
+        public Histogram getTicks() {
+            return ticks;
+        }
+        public Histogram getExpansions() {
+            return expansions;
+        }
+        public Histogram getReplans() {
+            return replans;
+        }
+        public Histogram getPeakFire() {
+            return peakFire;
+        }
+        public Histogram getGenerationNanos() {
+            return generationNanos;
+        }
+        public Histogram getPlanningNanos() {
+            return planningNanos;
+        }
+        public Histogram getSpreadNanos() {
+            return spreadNanos;
+        }
+        public Histogram getWallNanos() {
+            return wallNanos;
+        }
+
+        public int getSuccesses() {
+            return successes.get();
+        }
+
+        public void writeTo(DataOutput out) throws IOException { //every count and histogram, see addFrom
+            out.writeInt(successes.get());
+            out.writeInt(failures.get());
+            for (int i = 0; i < outcomes.length(); i++) {
+                out.writeInt(outcomes.get(i));
+            }
+            for (int i = 0; i < verdicts.length(); i++) {
+                out.writeInt(verdicts.get(i));
+                out.writeInt(verdictSuccesses.get(i));
+            }
+            out.writeInt(skipped.get());
+            for (Histogram histogram : histograms()) {
+                histogram.writeTo(out);
+            }
+        }
+
+        public void addFrom(DataInput in) throws IOException { //adds a counter written by writeTo, as if its trials had been recorded here
+            successes.addAndGet(in.readInt());
+            failures.addAndGet(in.readInt());
+            for (int i = 0; i < outcomes.length(); i++) {
+                outcomes.addAndGet(i, in.readInt());
+            }
+            for (int i = 0; i < verdicts.length(); i++) {
+                verdicts.addAndGet(i, in.readInt());
+                verdictSuccesses.addAndGet(i, in.readInt());
+            }
+            skipped.addAndGet(in.readInt());
+            for (Histogram histogram : histograms()) {
+                histogram.addFrom(in);
+            }
+        }
+
+        public void add(TrialCounter other) { //adds the trials recorded into 'other', as if they had been recorded here
+            successes.addAndGet(other.successes.get());
+            failures.addAndGet(other.failures.get());
+            for (int i = 0; i < outcomes.length(); i++) {
+                outcomes.addAndGet(i, other.outcomes.get(i));
+            }
+            for (int i = 0; i < verdicts.length(); i++) {
+                verdicts.addAndGet(i, other.verdicts.get(i));
+                verdictSuccesses.addAndGet(i, other.verdictSuccesses.get(i));
+            }
+            skipped.addAndGet(other.skipped.get());
+            Histogram[] histograms = histograms(), others = other.histograms();
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i].add(others[i]);
+            }
+        }
+
+        private Histogram[] histograms() { //in the order writeTo writes them
+            return new Histogram[] {ticks, expansions, replans, peakFire, generationNanos, planningNanos, spreadNanos, wallNanos};
+        }
+
+        public int getFailures() {
+            return failures.get();
+        }
+    }
+
+    public ExperimentRunner(int rows, int cols, int trials, int[] bots, double[] qValues, long masterSeed) {
+        this.rows = rows;
+        this.cols = cols;
+        this.trials = trials;
+        this.bots = bots.clone();
+        this.qValues = qValues.clone();
+        this.masterSeed = masterSeed;
+        this.counters = new TrialCounter[bots.length][qValues.length];
+        for (int b = 0; b < bots.length; b++) {
+            for (int k = 0; k < qValues.length; k++) {
+                counters[b][k] = new TrialCounter();
+            }
+        }
+        this.layoutCache = new ShipLayoutCache(trials); //room for every layout of the sweep, so none is ever generated twice
+    }
+
+    public void setPlannerMode(ShipBots.PlannerMode plannerMode) {
+        this.plannerMode = plannerMode;
+    }
+
+    public void setCoupledFire(boolean coupledFire) {
+        this.coupledFire = coupledFire;
+    }
+
+    public void setFirstTrial(int firstTrial) { //runs trials firstTrial .. firstTrial + trials - 1, with the same seeds a whole sweep gives them
+        this.firstTrial = firstTrial;
+    }
+
+    public void setOracle(boolean oracle) {
+        this.oracle = oracle;
+    }
+
+    //a failed trial is rerun to record its replay, which only fails the same way when the trial is reproducible, so not with a time budget
+    public void setReplayDirectory(Path replayDirectory) {
+        if (replayDirectory != null && budgetNanos > 0) {
+            throw new IllegalArgumentException("Replays need a reproducible trial, use an expansion budget instead of a time budget");
+        }
+        this.replayDirectory = replayDirectory;
+    }
+
+    public void setBudgetExpansions(int budgetExpansions) { //deterministic: the same trial plans the same cut-off paths on every run
+        this.budgetExpansions = budgetExpansions;
+    }
+
+    //not deterministic: where a plan is cut off depends on the measured timings, so a --verify run or a redone shard may tally other numbers
+    public void setBudgetNanos(long budgetNanos) {
+        if (budgetNanos > 0 && replayDirectory != null) {
+            throw new IllegalArgumentException("Replays need a reproducible trial, use an expansion budget instead of a time budget");
+        }
+        this.budgetNanos = budgetNanos;
+    }
+
+    private PlanningBudget newBudget() { //a fresh budget for every trial, so no trial inherits the timings of the trials before it on its thread
+        if (budgetExpansions > 0) {
+            return PlanningBudget.expansions(budgetExpansions);
+        }
+        return budgetNanos > 0 ? PlanningBudget.nanos(budgetNanos) : null;
+    }
+
+    public void setBatchSlots(int batchSlots) { //the batch ends every trial exactly like ShipBots, so the results do not depend on it. Coupled runs do not batch
+        this.batchSlots = batchSlots;
+    }
+
+    public void setLayoutCache(ShipLayoutCache layoutCache) { //e.g. a cache backed by a directory, so several runs share the same layout files
+        this.layoutCache = layoutCache;
+    }
+
+    public ShipLayoutCache getLayoutCache() {
+        return layoutCache;
+    }
+
+    public TrialCounter getCounter(int botIndex, int qIndex) {
+        return counters[botIndex][qIndex];
+    }
+
+    public int getFirstTrial() {
+        return firstTrial;
+    }
+    public int getTrials() {
+        return trials;
+    }
+
+    //identifies the sweep's settings (everything but the trial range), so shards of different sweeps are never merged.
+    //the random generator is one of them, the same seeds give other layouts and fires with another one
+    public long getFingerprint() {
+        long hash = trialSeed(masterSeed, RandomStream.DEFAULT_ALGORITHM.hashCode());
+        hash = trialSeed(hash, rows);
+        hash = trialSeed(hash, cols);
+        for (int bot : bots) {
+            hash = trialSeed(hash, bot);
+        }
+        for (double q : qValues) {
+            hash = trialSeed(hash, Double.doubleToLongBits(q));
+        }
+        hash = trialSeed(hash, plannerMode.ordinal());
+        if (budgetExpansions > 0 || budgetNanos > 0) { //sweeps without a budget keep the fingerprints they always had
+            hash = trialSeed(hash, trialSeed(budgetExpansions, budgetNanos));
+        }
+        return trialSeed(hash, (coupledFire ? 2 : 0) | (oracle ? 1 : 0));
+    }
+
+    public void writeCounters(DataOutput out) throws IOException { //the counters of every (bot, q) pair, see readCounters
+        for (TrialCounter[] row : counters) {
+            for (TrialCounter counter : row) {
+                counter.writeTo(out);
+            }
+        }
+    }
+
+    //reads counters written by writeCounters of a runner with the same bots and q values into new counters, this runner's are left alone
+    public TrialCounter[][] readCounters(DataInput in) throws IOException {
+        TrialCounter[][] read = new TrialCounter[bots.length][qValues.length];
+        for (TrialCounter[] row : read) {
+            for (int k = 0; k < row.length; k++) {
+                row[k] = new TrialCounter();
+                row[k].addFrom(in);
+            }
+        }
+        return read;
+    }
+
+    public void addCounters(TrialCounter[][] other) { //adds counters of readCounters, as if their trials had been recorded here
+        for (int b = 0; b < bots.length; b++) {
+            for (int k = 0; k < qValues.length; k++) {
+                counters[b][k].add(other[b][k]);
+            }
+        }
+    }
+
+    public void runSequential() { //runs every trial one after the other on the calling thread
+        for (int task = 0; task < taskCount(); task++) {
+            runTask(task);
+        }
+    }
+
+    public void runParallel(int parallelism) { //spreads every trial over a ForkJoinPool with 'parallelism' worker threads
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, taskCount()).parallel().forEach(this::runTask)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private int taskCount() { //in coupled mode a task is a whole trial, since all of its (bot, q) pairs share one fire sweep
+        return coupledFire ? trials : bots.length * qValues.length * trials;
+    }
+
+    private void runTask(int task) { //decodes a flat task number into its (bot, q, trial) triple and runs that trial
+        if (coupledFire) {
+            runCoupledTrial(task);
+            return;
+        }
+        int trial = firstTrial + task % trials;
+        int qIndex = (task / trials) % qValues.length;
+        int botIndex = task / (trials * qValues.length);
+        if (batchSlots > 0 && bots[botIndex] == 1) { //the first task of every batchSlots trials runs all of them, the others have nothing left to do
+            if ((task % trials) % batchSlots == 0) {
+                runBatch(botIndex, qIndex, trial, Math.min(batchSlots, trials - task % trials));
+            }
+            return;
+        }
+
+        //the layout only depends on the trial number, so every bot and q value is compared on the same ships
+        //the fire seed also depends on q, but not on the bot, so the bots face the same random draws
+        long layoutSeed = trialSeed(masterSeed, trial);
+        long fireSeed = trialSeed(layoutSeed, qIndex + 1);
+
+        //the layout is copied into this worker thread's context, whose engines are reset instead of allocated again
+        SimulationContext context = SimulationContext.forCurrentThread();
+        long layoutStart = System.nanoTime();
+        ShipGenerator layout = layoutCache.getShared(layoutSeed, rows, cols);
+        long layoutNanos = System.nanoTime() - layoutStart;
+
+        TrialOracle.Verdict verdict = oracle ? context.classify(layout) : null;
+        if (isSettled(verdict, bots[botIndex])) {
+            counters[botIndex][qIndex].record(verdict, null, layoutNanos);
+            return;
+        }
+        layoutStart = System.nanoTime();
+        ShipBots shipBots = context.newShipBots(layout, qValues[qIndex], fireSeed);
+        layoutNanos += System.nanoTime() - layoutStart;
+
+        shipBots.setVerbose(false);
+        shipBots.setPlannerMode(plannerMode);
+        shipBots.setPlanningBudget(newBudget());
+        SimulationResult result = runBot(shipBots, bots[botIndex]);
+        counters[botIndex][qIndex].record(verdict, result, layoutNanos);
+        if (replayDirectory != null && !result.isSuccess()) {
+            recordReplay(context.newShipBots(layout, qValues[qIndex], fireSeed), bots[botIndex], qValues[qIndex], trial);
+        }
+    }
+
+    //runs Bot One on trials from .. from + count - 1 for one q value in a BatchSimulation, with the layouts and fire seeds runTask gives them
+    private void runBatch(int botIndex, int qIndex, int from, int count) {
+        SimulationContext context = SimulationContext.forCurrentThread();
+        ShipGenerator[] layouts = new ShipGenerator[count];
+        long[] fireSeeds = new long[count];
+        long[] layoutNanos = new long[count];
+        TrialOracle.Verdict[] verdicts = new TrialOracle.Verdict[count];
+        int[] batchTrials = new int[count]; //the trials that are simulated, the first 'simulated' entries
+        int simulated = 0;
+        for (int i = 0; i < count; i++) {
+            long layoutSeed = trialSeed(masterSeed, from + i);
+            long layoutStart = System.nanoTime();
+            ShipGenerator layout = layoutCache.getShared(layoutSeed, rows, cols);
+            long nanos = System.nanoTime() - layoutStart;
+            TrialOracle.Verdict verdict = oracle ? context.classify(layout) : null;
+            if (isSettled(verdict, bots[botIndex])) {
+                counters[botIndex][qIndex].record(verdict, null, nanos);
+                continue;
+            }
+            layouts[simulated] = layout;
+            fireSeeds[simulated] = trialSeed(layoutSeed, qIndex + 1);
+            layoutNanos[simulated] = nanos;
+            verdicts[simulated] = verdict;
+            batchTrials[simulated++] = from + i;
+        }
+        if (simulated == 0) {
+            return;
+        }
+
+        SimulationResult[] results = context.batchSimulation(rows, cols, batchSlots)
+                .run(Arrays.copyOf(layouts, simulated), qValues[qIndex], Arrays.copyOf(fireSeeds, simulated));
+        for (int i = 0; i < simulated; i++) {
+            counters[botIndex][qIndex].record(verdicts[i], results[i], layoutNanos[i]);
+            if (replayDirectory != null && !results[i].isSuccess()) {
+                recordReplay(context.newShipBots(layouts[i], qValues[qIndex], fireSeeds[i]), bots[botIndex], qValues[qIndex], batchTrials[i]);
+            }
+        }
+    }
+
+    //true if the oracle's verdict already decides the bot's outcome. Under a planning budget a plan may stop short of the button,
+    //so the shortest path planners no longer win every WON trial for sure
+    private boolean isSettled(TrialOracle.Verdict verdict, int bot) {
+        boolean budgeted = budgetExpansions > 0 || budgetNanos > 0;
+        return verdict == TrialOracle.Verdict.IMPOSSIBLE || (verdict == TrialOracle.Verdict.WON && !budgeted && policy(bot).plansShortestPaths());
+    }
+
+    //spreads the fire for every q value at once with coupled random numbers, then replays the resulting schedules for every (bot, q) pair,
+    //so the q values differ only in their ignition thresholds and the fire is simulated once per trial instead of once per (bot, q) pair
+    private void runCoupledTrial(int task) {
+        int trial = firstTrial + task;
+        long layoutSeed = trialSeed(masterSeed, trial);
+        long fireSeed = trialSeed(layoutSeed, 0); //stream 0 is unused by the independent mode, which uses streams 1..qValues.length
+
+        long layoutStart = System.nanoTime();
+        ShipGenerator layout = layoutCache.getShared(layoutSeed, rows, cols);
+        long layoutNanos = System.nanoTime() - layoutStart;
+
+        //the verdict does not depend on q, and when it settles every bot the fire sweep is skipped too
+        SimulationContext context = SimulationContext.forCurrentThread();
+        TrialOracle.Verdict verdict = oracle ? context.classify(layout) : null;
+        FireSchedule[] schedules = null;
+        for (int b = 0; b < bots.length; b++) {
+            if (isSettled(verdict, bots[b])) {
+                for (int k = 0; k < qValues.length; k++) {
+                    counters[b][k].record(verdict, null, layoutNanos);
+                }
+                continue;
+            }
+            if (schedules == null) {
+                schedules = new CoupledFireSweep(layout.getShip(), layout.getFireCell(), qValues, fireSeed).run(ShipBots.MAX_ITERATIONS);
+            }
+            for (int k = 0; k < qValues.length; k++) {
+                ShipBots shipBots = context.newShipBots(layout, qValues[k], schedules[k]);
+                shipBots.setVerbose(false);
+                shipBots.setPlannerMode(plannerMode);
+                shipBots.setPlanningBudget(newBudget());
+                SimulationResult result = runBot(shipBots, bots[b]);
+                counters[b][k].record(verdict, result, layoutNanos);
+                if (replayDirectory != null && !result.isSuccess()) {
+                    recordReplay(context.newShipBots(layout, qValues[k], schedules[k]), bots[b], qValues[k], trial);
+                }
+            }
+        }
+    }
+
+    //reruns a failed trial on a fresh ShipBots for the same layout and fire, recording it. Every trial is seeded, so the rerun is the same simulation
+    private void recordReplay(ShipBots shipBots, int bot, double q, int trial) {
+        try {
+            Files.createDirectories(replayDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        shipBots.setVerbose(false);
+        shipBots.setPlannerMode(plannerMode);
+        shipBots.setPlanningBudget(newBudget());
+        shipBots.setReplayFile(replayDirectory.resolve(String.format(Locale.ROOT, "bot%d-q%.2f-trial%d.replay", bot, q, trial)));
+        runBot(shipBots, bot);
+    }
+
+    private static SimulationResult runBot(ShipBots shipBots, int bot) {
+        return shipBots.runSimulation(policy(bot));
+    }
+
+    private static BotPolicy policy(int bot) { //the StandardPolicy of Bot 'bot' (1 to 5)
+        if (bot < 1 || bot > StandardPolicy.values().length) {
+            throw new IllegalArgumentException("Unknown bot: " + bot);
+        }
+        return StandardPolicy.values()[bot - 1];
+    }
+
+    static long trialSeed(long seed, long stream) { //SplitMix64 finalizer, turns a (seed, stream) pair into a well mixed independent seed
+        long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    //with the oracle on, the trials it rated won and impossible are also listed on their own, and the contested success rate
+    //is the one that actually compares the bots (won trials are won by every shortest path planner, impossible ones lost by all)
+    public void printResults() {
+        System.out.println("bot\tq\tsuccesses\tfailures\tsuccess rate" + (oracle ? "\twon\timpossible\tcontested\tcontested success rate" : ""));
+        for (int b = 0; b < bots.length; b++) {
+            for (int k = 0; k < qValues.length; k++) {
+                TrialCounter counter = counters[b][k];
+                double rate = (double) counter.getSuccesses() / trials;
+                System.out.printf("%d\t%.2f\t%d\t%d\t%.3f", bots[b], qValues[k], counter.getSuccesses(), counter.getFailures(), rate);
+                if (oracle) {
+                    int contested = counter.getVerdictCount(TrialOracle.Verdict.CONTESTED);
+                    System.out.printf("\t%d\t%d\t%d\t%.3f", counter.getVerdictCount(TrialOracle.Verdict.WON), counter.getVerdictCount(TrialOracle.Verdict.IMPOSSIBLE),
+                            contested, contested == 0 ? 0.0 : (double) counter.getVerdictSuccesses(TrialOracle.Verdict.CONTESTED) / contested);
+                }
+                System.out.println();
+            }
+        }
+    }
+
+    //outcome breakdown and per phase timings of every (bot, q) pair, times in ms, p50/p99 are bucket upper bounds.
+    //only simulated trials are included, with the oracle on the trials it settled are counted in the last column
+    public void printMetrics() {
+        System.out.println("bot\tq\tsuccess\tburned\tstuck\ttimeout\tmean ticks\tmean replans\tmean expansions\tmean peak fire"
+                + "\tlayout ms\tplanning ms\tspread ms\twall ms\twall p50 ms\twall p99 ms" + (oracle ? "\tskipped" : ""));
+        for (int b = 0; b < bots.length; b++) {
+            for (int k = 0; k < qValues.length; k++) {
+                TrialCounter counter = counters[b][k];
+                System.out.printf("%d\t%.2f\t%d\t%d\t%d\t%d\t%.1f\t%.1f\t%.0f\t%.1f\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f", bots[b], qValues[k],
+                        counter.getOutcomeCount(SimulationResult.Outcome.SUCCESS), counter.getOutcomeCount(SimulationResult.Outcome.BURNED),
+                        counter.getOutcomeCount(SimulationResult.Outcome.STUCK), counter.getOutcomeCount(SimulationResult.Outcome.TIMEOUT),
+                        counter.getTicks().getMean(), counter.getReplans().getMean(), counter.getExpansions().getMean(), counter.getPeakFire().getMean(),
+                        counter.getGenerationNanos().getMean() / 1e6, counter.getPlanningNanos().getMean() / 1e6, counter.getSpreadNanos().getMean() / 1e6,
+                        counter.getWallNanos().getMean() / 1e6, counter.getWallNanos().percentile(50) / 1e6, counter.getWallNanos().percentile(99) / 1e6);
+                System.out.println(oracle ? "\t" + counter.getSkipped() : "");
+            }
+        }
+    }
+
+    private boolean sameResults(ExperimentRunner other) { //true if both runners tallied exactly the same counts
+        for (int b = 0; b < bots.length; b++) {
+            for (int k = 0; k < qValues.length; k++) {
+                if (counters[b][k].getSuccesses() != other.counters[b][k].getSuccesses()
+                        || counters[b][k].getFailures() != other.counters[b][k].getFailures()) {
+                    return false;
+                }
+                for (SimulationResult.Outcome outcome : SimulationResult.Outcome.values()) {
+                    if (counters[b][k].getOutcomeCount(outcome) != other.counters[b][k].getOutcomeCount(outcome)) {
+                        return false;
+                    }
+                }
+                for (TrialOracle.Verdict verdict : TrialOracle.Verdict.values()) {
+                    if (counters[b][k].getVerdictCount(verdict) != other.counters[b][k].getVerdictCount(verdict)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) {
+        //usage: java ExperimentRunner [trials] [masterSeed] [threads] [--verify] [--layouts=<dir>] [--coupled] [--planner=<mode>] [--oracle] [--replays=<dir>] [--batch=<slots>] [--budget=<n> | --budget-us=<n>] [--check-planners]
+        //--oracle classifies every trial with a TrialOracle first and only simulates the ones it cannot settle
+        //--planner picks the ShipBots.PlannerMode of Bots 2-4 (FULL_SEARCH, INCREMENTAL, BIDIRECTIONAL, JUMP_POINT, LANDMARK or CORRIDOR)
+        //--coupled runs every q value of a trial on one coupled fire sweep, see CoupledFireSweep
+        //--verify also runs the sweep sequentially and checks that both runs tallied the same numbers
+        //--layouts saves every generated layout in <dir> and loads it from there on later runs
+        //--replays=<dir> records a replay log of every failed trial into <dir>, see ReplayReader
+        //--batch=<slots> runs Bot One's trials through a BatchSimulation with <slots> slots, --verify then checks them against ShipBots
+        //--budget=<expansions> plans with a PlanningBudget of that many expansions per tick, --budget-us=<microseconds> with one adapted to that planning time.
+        //only --budget is deterministic, the cut-offs of --budget-us depend on the timings, so it cannot be combined with --replays
+        //--check-planners runs no sweep, it checks every planner mode against uniform cost search on the first [trials] layouts, see PlannerCheck
+        int trials = args.length > 0 && !args[0].startsWith("--") ? Integer.parseInt(args[0]) : 500;
+        long masterSeed = args.length > 1 && !args[1].startsWith("--") ? Long.parseLong(args[1]) : 1L;
+        int threads = args.length > 2 && !args[2].startsWith("--") ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        if (Arrays.asList(args).contains("--check-planners")) {
+            if (!PlannerCheck.check(100, 100, trials, masterSeed)) {
+                System.exit(1);
+            }
+            return;
+        }
+        boolean verify = Arrays.asList(args).contains("--verify");
+        boolean coupled = Arrays.asList(args).contains("--coupled");
+        boolean useOracle = Arrays.asList(args).contains("--oracle");
+        String layoutDirectory = null, replayDirectory = null;
+        int batchSlots = 0, budgetExpansions = 0;
+        long budgetNanos = 0;
+        ShipBots.PlannerMode plannerMode = ShipBots.PlannerMode.FULL_SEARCH;
+        for (String arg : args) {
+            if (arg.startsWith("--layouts=")) {
+                layoutDirectory = arg.substring("--layouts=".length());
+            } else if (arg.startsWith("--planner=")) {
+                plannerMode = ShipBots.PlannerMode.valueOf(arg.substring("--planner=".length()));
+            } else if (arg.startsWith("--replays=")) {
+                replayDirectory = arg.substring("--replays=".length());
+            } else if (arg.startsWith("--batch=")) {
+                batchSlots = Integer.parseInt(arg.substring("--batch=".length()));
+            } else if (arg.startsWith("--budget=")) {
+                budgetExpansions = Integer.parseInt(arg.substring("--budget=".length()));
+            } else if (arg.startsWith("--budget-us=")) {
+                budgetNanos = Long.parseLong(arg.substring("--budget-us=".length())) * 1000;
+            }
+        }
+
+        int[] bots = {1, 2, 3, 4, 5};
+        double[] qValues = {0.20, 0.55, 0.70, 0.85};
+
+        ExperimentRunner runner = new ExperimentRunner(100, 100, trials, bots, qValues, masterSeed);
+        runner.setCoupledFire(coupled);
+        runner.setPlannerMode(plannerMode);
+        runner.setOracle(useOracle);
+        runner.setBatchSlots(batchSlots);
+        runner.setBudgetExpansions(budgetExpansions);
+        runner.setBudgetNanos(budgetNanos);
+        if (layoutDirectory != null) {
+            runner.setLayoutCache(new ShipLayoutCache(trials, Paths.get(layoutDirectory)));
+        }
+        if (replayDirectory != null) {
+            runner.setReplayDirectory(Paths.get(replayDirectory));
+        }
+        long start = System.nanoTime();
+        runner.runParallel(threads);
+        System.out.printf("Ran %d trials on %d threads in %.1f s%n", bots.length * qValues.length * trials, threads, (System.nanoTime() - start) / 1e9);
+        System.out.printf("Layout cache: %d hits, %d misses%n", runner.getLayoutCache().getHits(), runner.getLayoutCache().getMisses());
+        runner.printResults();
+        runner.printMetrics();
+
+        if (verify) {
+            ExperimentRunner sequential = new ExperimentRunner(100, 100, trials, bots, qValues, masterSeed);
+            sequential.setCoupledFire(coupled);
+            sequential.setPlannerMode(plannerMode);
+            sequential.setOracle(useOracle);
+            sequential.setBudgetExpansions(budgetExpansions);
+            sequential.setBudgetNanos(budgetNanos);
+            sequential.runSequential();
+            System.out.println(runner.sameResults(sequential) ? "Sequential run matches." : "Sequential run does NOT match!");
+        }
+    }
+}
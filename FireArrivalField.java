@@ -0,0 +1,66 @@
+import java.util.*;
+
+public class FireArrivalField { //per tick estimate of when the fire can reach every cell, from one multi-source BFS over the open cells starting at the fire frontier
+    public static final int UNREACHABLE = Integer.MAX_VALUE; //arrival time of cells the fire cannot reach
+
+    private static final int STAMP = 0, DISTANCE = 1; //fields of a cell's record in 'cells'
+
+    private final ShipGrid grid; //ship the fire spreads on
+    private final CellTable cells; //DISTANCE = fewest fire spread steps from a burning cell to the cell, valid when STAMP == epoch, so the field never has to be cleared between ticks
+    private final IntQueue queue = new IntQueue(); //BFS queue, reused every tick
+    private int epoch;
+    private double ticksPerStep = 1; //expected ticks for the fire to cross one cell, 1/q
+
+    public FireArrivalField(ShipGrid grid) {
+        this.grid = grid;
+        this.cells = CellTable.create(grid.size(), 2);
+    }
+
+    //recomputes the field for the fire's current state, one linear pass over the cells the fire can still reach
+    //the fire spreads at most one cell per tick, and a cell next to a single burning cell takes 1/q ticks on average to ignite
+    public void compute(FireEngine fireEngine, double q) {
+        compute(fireEngine, q, Integer.MAX_VALUE);
+    }
+
+    //same, but the BFS stops 'maxDistance' cells from the fire and every cell beyond reads as UNREACHABLE, so the pass only costs the cells
+    //near the fire. Used under a PlanningBudget: a search of E expansions never gets more than E steps from the bot, and a cell more than
+    //(E + RISK_MARGIN) * q cells from the fire cannot be risky that early, so its cost is the same either way
+    public void compute(FireEngine fireEngine, double q, int maxDistance) {
+        epoch = cells.nextEpoch(epoch);
+        ticksPerStep = 1 / q;
+        queue.clear();
+        for (int i = 0; i < fireEngine.getFrontierSize(); i++) { //the frontier surrounds every other burning cell, so it is enough to start from it
+            int cell = fireEngine.getFrontier(i);
+            cells.set(cell, STAMP, epoch);
+            cells.set(cell, DISTANCE, 0);
+            queue.add(cell);
+        }
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int distance = cells.get(cell, DISTANCE);
+            if (distance == maxDistance) {
+                continue;
+            }
+            for (int mask = grid.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+                int neighbor = grid.neighbor(cell, Integer.numberOfTrailingZeros(mask));
+                if (cells.get(neighbor, STAMP) != epoch && !grid.isFire(neighbor)) {
+                    cells.set(neighbor, STAMP, epoch);
+                    cells.set(neighbor, DISTANCE, distance + 1);
+                    queue.add(neighbor);
+                }
+            }
+        }
+    }
+
+    public int earliestArrival(int cell) { //earliest tick (from now) at which 'cell' can be on fire, 0 for burning cells
+        if (grid.isFire(cell)) {
+            return 0;
+        }
+        return cells.get(cell, STAMP) == epoch ? cells.get(cell, DISTANCE) : UNREACHABLE;
+    }
+
+    public int expectedArrival(int cell) { //rough expected tick (from now) at which 'cell' catches fire, the earliest arrival stretched by 1/q
+        int earliest = earliestArrival(cell);
+        return earliest == UNREACHABLE ? UNREACHABLE : (int) Math.min(Integer.MAX_VALUE - 1, earliest * ticksPerStep);
+    }
+}
@@ -0,0 +1,231 @@
+import java.util.*;
+
+//incremental fire spread, only the burning cells on the boundary of the fire are visited each step, so a step costs O(frontier) instead of O(fire).
+//which candidates ignite is decided by FireKernel, the same code BatchSimulation spreads its fires with
+public class FireEngine {
+    public enum Mode { //how step() finds the cells that may ignite
+        FRONTIER, //walks the neighbors of every frontier cell, cheapest while the fire's boundary is small
+        DENSE, //sweeps the whole grid a word (64 cells) at a time with shifted fire planes and bit sliced neighbor counts
+        ADAPTIVE //FRONTIER or DENSE, whichever is cheaper for the current frontier size (the default)
+    }
+
+    private final ShipGrid grid; //ship the fire spreads on, burning cells are kept in its fire bit plane
+    private RandomStream random; //source of the ignition draws
+    private FireSchedule schedule; //when not null, the fire replays this schedule instead of drawing, see CoupledFireSweep
+    private final double[] igniteProbability = new double[5]; //igniteProbability[K] = 1 - (1 - q)^K, the chance that a cell with K burning neighbors catches fire
+    private final byte[] burningNeighbors; //burningNeighbors[cell] = number of burning cells next to 'cell', updated whenever a cell ignites
+    private final byte[] danger; //danger[cell] = number of burning cells in the 3x3 block centered on 'cell' (the cell itself and its 8 neighbors)
+
+    private int[] frontier = new int[16]; //burning cells that still have at least one open neighbor which is not on fire
+    private int frontierSize;
+    private int[] ignited = new int[16]; //cells ignited by the last call to step()
+    private int ignitedCount;
+    private int[] candidates = new int[16]; //scratch list of the cells that may ignite in the current step
+    private double[] draws = new double[16]; //draws[i] = the uniform drawn for candidates[i], filled in one batch per step (per word in the dense kernel)
+    private final long[] candidateBits; //bit set = 'cell' is already in 'candidates', so every cell is only drawn for once per step. Cleared again at the end of the step
+    private int steps; //number of steps taken so far
+    private int[] burning = new int[16]; //every cell on fire, in ignition order, reset() clears the counts around them
+    private int burningCount; //number of cells on fire
+    private Mode mode = Mode.ADAPTIVE;
+    private boolean dense; //true while ADAPTIVE runs the dense kernel
+
+    public FireEngine(ShipGrid grid, double q, RandomStream random) {
+        this(grid, q, random, null);
+    }
+
+    public FireEngine(ShipGrid grid, FireSchedule schedule) { //replays a precomputed fire, every step ignites the cells the schedule lists for it
+        this(grid, 0, null, schedule);
+    }
+
+    private FireEngine(ShipGrid grid, double q, RandomStream random, FireSchedule schedule) {
+        this.grid = grid;
+        this.burningNeighbors = new byte[grid.size()];
+        this.danger = new byte[grid.size()];
+        this.candidateBits = new long[grid.openPlaneWords()]; //a bit per cell, a stamp per cell would cost 4 bytes on a huge ship
+        setUp(q, random, schedule);
+    }
+
+    //makes the engine ready for a new fire on the same grid, as if it was just created, in O(cells that were on fire).
+    //the grid's fire plane is not touched, the caller reloads the layout (see SimulationContext)
+    public void reset(double q, RandomStream random, FireSchedule schedule) {
+        int stride = grid.getStride();
+        for (int i = 0; i < burningCount; i++) {
+            int cell = burning[i];
+            for (int above = cell - stride - 1; above <= cell + stride - 1; above += stride) { //the 3x3 block covers the 4 neighbors too
+                burningNeighbors[above] = 0;
+                burningNeighbors[above + 1] = 0;
+                burningNeighbors[above + 2] = 0;
+                danger[above] = 0;
+                danger[above + 1] = 0;
+                danger[above + 2] = 0;
+            }
+        }
+        burningCount = 0;
+        frontierSize = 0;
+        ignitedCount = 0;
+        steps = 0;
+        dense = false;
+        setUp(q, random, schedule);
+    }
+
+    private void setUp(double q, RandomStream random, FireSchedule schedule) {
+        this.random = random;
+        this.schedule = schedule;
+        FireKernel.igniteProbabilities(q, igniteProbability); //computed once here instead of once per candidate cell
+    }
+
+    //sets 'cell' on fire and updates the neighbor counts and the frontier, used for the initial fire and by step()
+    //every cell must only be ignited once, the cell may already have its fire bit set (ShipGenerator sets it for the initial fire)
+    public void ignite(int cell) {
+        grid.ignite(cell);
+        burning = add(burning, burningCount++, cell);
+        for (int direction = 0; direction < 4; direction++) {
+            burningNeighbors[grid.neighbor(cell, direction)]++;
+        }
+        int stride = grid.getStride();
+        for (int above = cell - stride - 1; above <= cell + stride - 1; above += stride) { //the 3 rows of the 3x3 block, the padded border keeps them in range
+            danger[above]++;
+            danger[above + 1]++;
+            danger[above + 2]++;
+        }
+        frontier = add(frontier, frontierSize++, cell);
+    }
+
+    //advances the fire by one tick: every open cell next to the fire ignites with probability 1 - (1 - q)^K,
+    //where K is its number of burning neighbors at the start of the tick. Returns the number of newly ignited cells
+    public int step() {
+        steps++;
+        if (schedule != null) {
+            return replayStep();
+        }
+        if (useDenseKernel()) {
+            return denseStep();
+        }
+
+        //collect every open, not burning neighbor of the frontier exactly once
+        int candidateCount = 0;
+        for (int i = 0; i < frontierSize; i++) {
+            int fireCell = frontier[i];
+            for (int mask = grid.openNeighborMask(fireCell); mask != 0; mask &= mask - 1) {
+                int neighbor = grid.neighbor(fireCell, Integer.numberOfTrailingZeros(mask));
+                if (!grid.isFire(neighbor) && (candidateBits[neighbor >>> 6] & 1L << neighbor) == 0) {
+                    candidateBits[neighbor >>> 6] |= 1L << neighbor;
+                    candidates = add(candidates, candidateCount++, neighbor);
+                }
+            }
+        }
+
+        for (int i = 0; i < candidateCount; i++) {
+            candidateBits[candidates[i] >>> 6] = 0; //only candidates have their bit set, so the whole word can go
+        }
+
+        //draw for every candidate before igniting any of them, so the counts all describe the start of the tick
+        if (draws.length < candidateCount) {
+            draws = new double[Math.max(candidateCount, draws.length * 2)];
+        }
+        ignited = ensure(ignited, candidateCount);
+        ignitedCount = FireKernel.drawCandidates(candidates, candidateCount, burningNeighbors, 0, igniteProbability, random, draws, ignited, 0);
+        for (int i = 0; i < ignitedCount; i++) {
+            ignite(ignited[i]);
+        }
+
+        pruneFrontier();
+        return ignitedCount;
+    }
+
+    private int replayStep() { //ignites the cells the schedule lists for this step
+        ignitedCount = 0;
+        for (int i = schedule.from(steps); i < schedule.to(steps); i++) {
+            ignited = add(ignited, ignitedCount++, schedule.getCell(i));
+        }
+        for (int i = 0; i < ignitedCount; i++) {
+            ignite(ignited[i]);
+        }
+        pruneFrontier();
+        return ignitedCount;
+    }
+
+    private boolean useDenseKernel() {
+        if (mode != Mode.ADAPTIVE) {
+            return mode == Mode.DENSE;
+        }
+        dense = FireKernel.useDense(dense, frontierSize, grid.openPlaneWords());
+        return dense;
+    }
+
+    //whole grid version of the candidate search: for every word of 64 cells the fire planes shifted by one row up and down and by one
+    //column left and right give the burning neighbors, and their bit sliced sum gives every cell's K. Cells are drawn for in cell order
+    private int denseStep() {
+        int stride = grid.getStride();
+        if (draws.length < 64) {
+            draws = new double[64];
+        }
+        ignitedCount = 0;
+        for (int word = 0, words = grid.openPlaneWords(); word < words; word++) {
+            int base = word << 6;
+            ignited = ensure(ignited, ignitedCount + 64);
+            ignitedCount = FireKernel.denseWord(base, grid.openBits(base), grid.fireBits(base), grid.fireBits(base - stride), grid.fireBits(base + stride),
+                    grid.fireBits(base - 1), grid.fireBits(base + 1), igniteProbability, random, draws, ignited, ignitedCount);
+        }
+        for (int i = 0; i < ignitedCount; i++) {
+            ignite(ignited[i]);
+        }
+        pruneFrontier();
+        return ignitedCount;
+    }
+
+    private void pruneFrontier() { //drops the cells that are now surrounded by fire and walls from the frontier
+        int kept = 0;
+        for (int i = 0; i < frontierSize; i++) {
+            int cell = frontier[i];
+            if (grid.openNeighborCount(cell) > burningNeighbors[cell]) {
+                frontier[kept++] = cell;
+            }
+        }
+        frontierSize = kept;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getIgnitedCount() { //number of cells ignited by the last step
+        return ignitedCount;
+    }
+    public int getIgnited(int i) { //i-th cell ignited by the last step
+        return ignited[i];
+    }
+    public int getFrontierSize() {
+        return frontierSize;
+    }
+    public int getFrontier(int i) { //i-th burning cell on the boundary of the fire
+        return frontier[i];
+    }
+    public int getBurningCount() {
+        return burningCount;
+    }
+    public int getBurningNeighbors(int cell) {
+        return burningNeighbors[cell];
+    }
+
+    //the two adjacency checks below are single array lookups into grids kept up to date by ignite(), they are shared by all planners
+
+    public boolean isAdjacentToFire(int cell) { //true if 'cell' or any of its 8 neighbors (diagonals included) is on fire
+        return danger[cell] != 0;
+    }
+    public boolean isOrthogonallyAdjacentToFire(int cell) { //true if 'cell' or any of its 4 neighbors (up, down, left, right) is on fire
+        return burningNeighbors[cell] != 0 || grid.isFire(cell);
+    }
+
+    private static int[] ensure(int[] list, int capacity) { //'list', or a copy of it grown to hold at least 'capacity' entries
+        return list.length >= capacity ? list : Arrays.copyOf(list, Math.max(capacity, list.length * 2));
+    }
+
+    private static int[] add(int[] list, int size, int value) { //appends 'value' at index 'size', growing the array when it is full
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size * 2);
+        }
+        list[size] = value;
+        return list;
+    }
+}
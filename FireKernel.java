@@ -0,0 +1,67 @@
+//the part of a fire spread step that decides which cells ignite, shared by FireEngine and BatchSimulation so both draw the same numbers for
+//the same candidates in the same order: the ignition chances, ADAPTIVE's switch between the frontier and the dense kernel, the draws for a
+//step's candidate list, and the dense kernel on one plane word. The callers keep their own planes and lists and only pass them in
+final class FireKernel {
+    //ADAPTIVE switches to DENSE once the frontier has more than DENSE_ENTER cells per plane word and back below DENSE_EXIT,
+    //the gap keeps a frontier hovering around the crossover from flipping modes every step
+    private static final double DENSE_ENTER = 1.0;
+    private static final double DENSE_EXIT = 0.5;
+
+    private FireKernel() {
+    }
+
+    static void igniteProbabilities(double q, double[] into) { //into[K] = 1 - (1 - q)^K, the chance that a cell with K burning neighbors catches fire
+        for (int K = 0; K <= 4; K++) {
+            into[K] = 1 - Math.pow(1 - q, K);
+        }
+    }
+
+    static boolean useDense(boolean dense, int frontierSize, int words) { //whether ADAPTIVE's next step is dense, 'dense' is whether its last one was
+        return dense ? frontierSize >= DENSE_EXIT * words : frontierSize > DENSE_ENTER * words;
+    }
+
+    //draws one uniform per cell of candidates[0 .. count - 1], in that order, and appends the cells that ignite to 'ignited' from
+    //ignitedCount on. K of a cell is burningNeighbors[offset + cell]. 'draws' must hold count numbers and 'ignited' count more cells.
+    //returns the new ignitedCount
+    static int drawCandidates(int[] candidates, int count, byte[] burningNeighbors, int offset, double[] igniteProbability,
+                              RandomStream random, double[] draws, int[] ignited, int ignitedCount) {
+        random.nextDoubles(draws, count);
+        for (int i = 0; i < count; i++) {
+            int cell = candidates[i];
+            if (draws[i] < igniteProbability[burningNeighbors[offset + cell]]) {
+                ignited[ignitedCount++] = cell;
+            }
+        }
+        return ignitedCount;
+    }
+
+    //the dense kernel on the 64 cells starting at 'base': 'open' and 'fire' are their bits, 'up', 'down', 'left' and 'right' the fire bits
+    //of the cells one row above, one row below, one column left and one column right of them, so their bit sliced sum is every cell's K.
+    //the candidates are drawn for in cell order and appended to 'ignited' like drawCandidates, 'draws' and 'ignited' need room for 64
+    static int denseWord(int base, long open, long fire, long up, long down, long left, long right, double[] igniteProbability,
+                         RandomStream random, double[] draws, int[] ignited, int ignitedCount) {
+        long candidates = open & ~fire & (up | down | left | right);
+        if (candidates == 0) {
+            return ignitedCount;
+        }
+
+        //K = up + down + left + right as three bit planes (k0 + 2 k1 + 4 k2), two half adders and one full adder
+        long sumVertical = up ^ down, carryVertical = up & down;
+        long sumHorizontal = left ^ right, carryHorizontal = left & right;
+        long k0 = sumVertical ^ sumHorizontal;
+        long carry = sumVertical & sumHorizontal;
+        long k1 = carryVertical ^ carryHorizontal ^ carry;
+        long k2 = (carryVertical & carryHorizontal) | ((carryVertical ^ carryHorizontal) & carry);
+
+        random.nextDoubles(draws, Long.bitCount(candidates)); //one draw per candidate of the word, in cell order
+        int draw = 0;
+        for (long mask = candidates; mask != 0; mask &= mask - 1) {
+            int bit = Long.numberOfTrailingZeros(mask);
+            int K = (int) ((k0 >>> bit) & 1 | ((k1 >>> bit) & 1) << 1 | ((k2 >>> bit) & 1) << 2);
+            if (draws[draw++] < igniteProbability[K]) {
+                ignited[ignitedCount++] = base + bit;
+            }
+        }
+        return ignitedCount;
+    }
+}
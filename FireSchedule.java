@@ -0,0 +1,29 @@
+public class FireSchedule { //precomputed fire spread for one q value: the cells that ignite on every tick, replayed by FireEngine instead of drawing random numbers
+    private final int[] cells; //ignited cells in ignition order
+    private final int[] tickStart; //the cells ignited on tick t (1 to ticks) are cells[tickStart[t] .. tickStart[t + 1])
+    private final int ticks; //number of ticks recorded, no cell ignites after the last one
+
+    public FireSchedule(int[] cells, int[] tickStart, int ticks) {
+        this.cells = cells;
+        this.tickStart = tickStart;
+        this.ticks = ticks;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+    public int getIgnitedCount() { //number of cells ignited over all ticks, the initial fire not included
+        return tickStart[ticks + 1];
+    }
+
+    public int from(int tick) { //index of the first cell ignited on 'tick' (1 based, like FireEngine's steps)
+        return tick > ticks ? tickStart[ticks + 1] : tickStart[tick];
+    }
+    public int to(int tick) { //index one past the last cell ignited on 'tick'
+        return tick > ticks ? tickStart[ticks + 1] : tickStart[tick + 1];
+    }
+
+    public int getCell(int i) {
+        return cells[i];
+    }
+}
@@ -0,0 +1,74 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class Histogram { //histogram of non-negative long values with power of two buckets, safe to record into from several worker threads
+    private static final int BUCKETS = 64; //bucket b holds the values v with 2^(b-1) <= v < 2^b, bucket 0 holds 0
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(0, value)));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public void writeTo(DataOutput out) throws IOException { //count, sum, max and the buckets, see addFrom
+        out.writeLong(count.get());
+        out.writeLong(sum.get());
+        out.writeLong(max.get());
+        for (int b = 0; b < BUCKETS; b++) {
+            out.writeLong(buckets.get(b));
+        }
+    }
+
+    public void addFrom(DataInput in) throws IOException { //adds a histogram written by writeTo, as if its values had been recorded here
+        count.addAndGet(in.readLong());
+        sum.addAndGet(in.readLong());
+        max.accumulateAndGet(in.readLong(), Math::max);
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets.addAndGet(b, in.readLong());
+        }
+    }
+
+    public void add(Histogram other) { //adds the values recorded into 'other', as if they had been recorded here
+        count.addAndGet(other.count.get());
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets.addAndGet(b, other.buckets.get(b));
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+    public long getMax() {
+        return max.get();
+    }
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    public long percentile(double p) { //upper bound of the bucket holding the p-th percentile (0 < p <= 100), so the result is at most 2x too high
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(p / 100 * n);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets.get(b);
+            if (seen >= rank) {
+                return b == 0 ? 0 : Math.min(max.get(), (1L << b) - 1);
+            }
+        }
+        return max.get();
+    }
+}
@@ -0,0 +1,275 @@
+import java.util.*;
+
+public class IncrementalPlanner { //D* Lite planner towards a fixed goal, keeps its search state between calls and only repairs the part of it touched by cells whose passability changed
+    private static final int INF = Integer.MAX_VALUE / 2; //"unreachable" cost, small enough that INF + 1 does not overflow
+    //fields of a cell's record in 'cells', with their defaults: a cell nothing was written to is unreachable, consistent and not queued
+    private static final int G = 0, RHS = 1, HEAP_INDEX = 2, CHANGED_STAMP = 3, TOUCHED_STAMP = 4;
+    private static final int[] DEFAULTS = {INF, INF, -1, 0, 0};
+
+    private final ShipGrid grid; //ship being searched, cells are the padded indices of ShipGrid
+    private int goal; //the search runs backwards from this cell, so it never moves (until reset)
+    private SearchEngine.CellFilter filter; //decides which open cells may be stepped onto, read again every time an edge cost is needed
+    //G = current estimate of the distance from the cell to the goal, RHS = one step lookahead of G, the cell is consistent when both are
+    //equal. HEAP_INDEX = position of the cell in the heap, or -1 when it is not queued. CHANGED_STAMP == plans + 1 when the cell is already
+    //pending, so a change is only applied once per plan. TOUCHED_STAMP == resets + 1 when the cell is in 'touched'
+    private final CellTable cells;
+    private final IntQueue pendingChanges = new IntQueue(); //cells whose passability changed since the last plan
+    private int[] touched = new int[64]; //cells whose g or rhs is not INF anymore, reset() only has to restore these
+    private int touchedCount;
+    private int resets; //number of reset() calls
+
+    private int[] heapCells = new int[64]; //indexed binary min-heap of inconsistent cells...
+    private long[] heapKeys = new long[64]; //...ordered by their packed (k1, k2) D* Lite keys
+    private int heapSize;
+
+    private int start = -1; //start cell of the last plan
+    private int km; //key modifier, grows by the heuristic distance the start moved, so queued keys stay valid without reordering the heap
+    private int plans; //number of plan() calls
+    private int expansions; //number of cells popped by the last plan
+
+    public IncrementalPlanner(ShipGrid grid, int goal, SearchEngine.CellFilter filter) {
+        this.grid = grid;
+        this.cells = CellTable.create(grid.size(), DEFAULTS);
+        start(goal, filter);
+    }
+
+    //forgets all search state and starts over towards 'goal', as if the planner was just created, in O(cells the previous searches touched)
+    public void reset(int goal, SearchEngine.CellFilter filter) {
+        for (int i = 0; i < touchedCount; i++) {
+            cells.set(touched[i], G, INF);
+            cells.set(touched[i], RHS, INF);
+        }
+        for (int i = 0; i < heapSize; i++) {
+            cells.set(heapCells[i], HEAP_INDEX, -1);
+        }
+        touchedCount = 0;
+        heapSize = 0;
+        pendingChanges.clear();
+        start = -1;
+        km = 0;
+        expansions = 0;
+        resets++;
+        start(goal, filter);
+    }
+
+    private void start(int goal, SearchEngine.CellFilter filter) {
+        this.goal = goal;
+        this.filter = filter;
+        touch(goal);
+        cells.set(goal, RHS, 0);
+    }
+
+    private void touch(int cell) { //remembers that g or rhs of 'cell' is about to change
+        if (cells.get(cell, TOUCHED_STAMP) != resets + 1) {
+            cells.set(cell, TOUCHED_STAMP, resets + 1);
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = cell;
+        }
+    }
+
+    public int getExpansions() {
+        return expansions;
+    }
+
+    public void cellChanged(int cell) { //tells the planner that 'cell' may have become (im)passable, the repair happens on the next plan
+        if (grid.isOpen(cell) && cells.get(cell, CHANGED_STAMP) != plans + 1) { //cells that are not open are never passable, so they cannot change
+            cells.set(cell, CHANGED_STAMP, plans + 1);
+            pendingChanges.add(cell);
+        }
+    }
+
+    //returns a shortest path from 'startCell' to the goal over open cells accepted by the filter (the start cell itself is never checked),
+    //without the start cell and with the goal cell, or null if the goal cannot be reached. Same contract as SearchEngine.search
+    public int[] plan(int startCell) {
+        plans++;
+        expansions = 0;
+        if (start == -1) {
+            start = startCell;
+            insert(goal, key(goal));
+        } else {
+            km += grid.manhattan(start, startCell);
+            start = startCell;
+        }
+
+        //a changed cell changes the cost of every edge entering it, so each of its neighbors has to recompute its rhs
+        while (!pendingChanges.isEmpty()) {
+            int cell = pendingChanges.poll();
+            for (int mask = grid.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+                updateVertex(grid.neighbor(cell, Integer.numberOfTrailingZeros(mask)));
+            }
+        }
+
+        computeShortestPath();
+        if (cells.get(start, G) >= INF) {
+            return null;
+        }
+        return extractPath();
+    }
+
+    private void computeShortestPath() {
+        while (heapSize > 0 && (heapKeys[0] < key(start) || cells.get(start, RHS) != cells.get(start, G))) {
+            int cell = heapCells[0];
+            long oldKey = heapKeys[0];
+            long newKey = key(cell);
+            expansions++;
+            if (oldKey < newKey) { //the key is stale because the start moved, requeue it with its current key
+                update(cell, newKey);
+            } else if (cells.get(cell, G) > cells.get(cell, RHS)) { //overconsistent, the cell got cheaper
+                touch(cell);
+                cells.set(cell, G, cells.get(cell, RHS));
+                remove(cell);
+                updateNeighbors(cell);
+            } else { //underconsistent, the cell got more expensive
+                touch(cell);
+                cells.set(cell, G, INF);
+                updateVertex(cell);
+                updateNeighbors(cell);
+            }
+        }
+    }
+
+    private void updateNeighbors(int cell) {
+        for (int mask = grid.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+            updateVertex(grid.neighbor(cell, Integer.numberOfTrailingZeros(mask)));
+        }
+    }
+
+    private void updateVertex(int cell) {
+        if (cell != goal) {
+            touch(cell);
+            cells.set(cell, RHS, bestSuccessorCost(cell));
+        }
+        boolean queued = cells.get(cell, HEAP_INDEX) != -1;
+        if (cells.get(cell, G) != cells.get(cell, RHS)) {
+            if (queued) {
+                update(cell, key(cell));
+            } else {
+                insert(cell, key(cell));
+            }
+        } else if (queued) {
+            remove(cell);
+        }
+    }
+
+    private int bestSuccessorCost(int cell) { //min over the neighbors of (edge cost + g), an edge costs 1 when its target is passable
+        int best = INF;
+        for (int mask = grid.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+            int next = grid.neighbor(cell, Integer.numberOfTrailingZeros(mask));
+            int g = cells.get(next, G);
+            if (g < INF && g + 1 < best && filter.canEnter(next)) {
+                best = g + 1;
+            }
+        }
+        return best;
+    }
+
+    private int[] extractPath() { //greedily follows the cheapest successor from the start, the g values are consistent along it
+        int[] path = new int[cells.get(start, G)];
+        int cell = start;
+        for (int i = 0; i < path.length; i++) {
+            int best = -1, bestG = INF;
+            for (int mask = grid.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+                int next = grid.neighbor(cell, Integer.numberOfTrailingZeros(mask));
+                int g = cells.get(next, G);
+                if (g < INF && (best == -1 || g < bestG) && filter.canEnter(next)) {
+                    best = next;
+                    bestG = g;
+                }
+            }
+            if (best == -1) {
+                return null;
+            }
+            path[i] = best;
+            cell = best;
+        }
+        return cell == goal ? path : null;
+    }
+
+    private long key(int cell) { //packs the D* Lite key [min(g, rhs) + h + km ; min(g, rhs)] into one long that sorts the same way
+        int m = Math.min(cells.get(cell, G), cells.get(cell, RHS));
+        long k1 = m >= INF ? INF : (long) m + grid.manhattan(start, cell) + km;
+        return (k1 << 32) | m;
+    }
+
+    private void insert(int cell, long key) {
+        if (heapSize == heapCells.length) {
+            heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+        }
+        int i = heapSize++;
+        heapCells[i] = cell;
+        heapKeys[i] = key;
+        cells.set(cell, HEAP_INDEX, i);
+        siftUp(i);
+    }
+
+    private void update(int cell, long key) {
+        int i = cells.get(cell, HEAP_INDEX);
+        long old = heapKeys[i];
+        heapKeys[i] = key;
+        if (key < old) {
+            siftUp(i);
+        } else {
+            siftDown(i);
+        }
+    }
+
+    private void remove(int cell) {
+        int i = cells.get(cell, HEAP_INDEX);
+        cells.set(cell, HEAP_INDEX, -1);
+        int last = --heapSize;
+        if (i != last) {
+            heapCells[i] = heapCells[last];
+            heapKeys[i] = heapKeys[last];
+            cells.set(heapCells[i], HEAP_INDEX, i);
+            siftDown(i);
+            siftUp(i);
+        }
+    }
+
+    private void siftUp(int i) {
+        int cell = heapCells[i];
+        long key = heapKeys[i];
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKeys[up] <= key) {
+                break;
+            }
+            move(up, i);
+            i = up;
+        }
+        heapCells[i] = cell;
+        heapKeys[i] = key;
+        cells.set(cell, HEAP_INDEX, i);
+    }
+
+    private void siftDown(int i) {
+        int cell = heapCells[i];
+        long key = heapKeys[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= key) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        heapCells[i] = cell;
+        heapKeys[i] = key;
+        cells.set(cell, HEAP_INDEX, i);
+    }
+
+    private void move(int from, int to) { //moves the heap entry at 'from' to 'to' and keeps heapIndex in sync
+        heapCells[to] = heapCells[from];
+        heapKeys[to] = heapKeys[from];
+        cells.set(heapCells[to], HEAP_INDEX, to);
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.*;
+
+public class IntHeap { //binary min-heap of primitive ints (encoded cells) ordered by int keys, duplicates are allowed so stale entries are skipped by the caller
+    private int[] items = new int[64];
+    private int[] keys = new int[64];
+    private int size;
+
+    public void push(int item, int key) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        int i = size++;
+        while (i > 0) { //sift up
+            int up = (i - 1) >>> 1;
+            if (keys[up] <= key) {
+                break;
+            }
+            items[i] = items[up];
+            keys[i] = keys[up];
+            i = up;
+        }
+        items[i] = item;
+        keys[i] = key;
+    }
+
+    public int pop() { //removes and returns the item with the smallest key, the heap must not be empty
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int top = items[0];
+        int lastItem = items[--size];
+        int lastKey = keys[size];
+        int i = 0;
+        while (true) { //sift the last entry down from the root
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= lastKey) {
+                break;
+            }
+            items[i] = items[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        items[i] = lastItem;
+        keys[i] = lastKey;
+        return top;
+    }
+
+    public int peekKey() { //smallest key, the heap must not be empty
+        return keys[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
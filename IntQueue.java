@@ -0,0 +1,46 @@
+import java.util.*;
+
+public class IntQueue { //FIFO queue of primitive ints (encoded cells) backed by a growable ring buffer, avoids boxing int[] positions in LinkedLists
+    private int[] items = new int[16];
+    private int head, size;
+
+    public void add(int item) {
+        if (size == items.length) { //full, unroll the ring into an array twice the size
+            int[] grown = new int[items.length * 2];
+            for (int i = 0; i < size; i++) {
+                grown[i] = items[(head + i) & (items.length - 1)];
+            }
+            items = grown;
+            head = 0;
+        }
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    public int poll() { //removes and returns the oldest item, the queue must not be empty
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return item;
+    }
+
+    public int get(int i) { //i-th oldest item, without removing it
+        return items[(head + i) & (items.length - 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
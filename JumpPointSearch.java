@@ -0,0 +1,177 @@
+import java.util.*;
+
+//jump point search for the 4-connected ship grid: A* that only expands the cells where a shortest path may have to turn, and jumps over the
+//straight runs between them without putting them on the heap. Passability is read through the filter on the fly, so no preprocessing is
+//needed and fire or visited cells are handled like walls. Same contract as SearchEngine.search
+//
+//shortest paths are made unique by preferring vertical moves before horizontal ones. Moving vertically the bot may therefore turn at any
+//cell, so every step of a vertical jump also scans left and right and stops where one of those scans finds something. Moving horizontally
+//it only turns where it has to: at a cell whose up (down) neighbor is passable while the up (down) neighbor of the previous cell is not
+public class JumpPointSearch {
+    private static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3; //same direction numbers as ShipGrid.neighbor
+    //fields of a cell's record in 'cells': STAMP is epoch once the search reached the cell and -epoch while it is expanded (closed),
+    //PARENT, COST and ARRIVALS are only valid when STAMP is one of the two
+    private static final int STAMP = 0, PARENT = 1, COST = 2, ARRIVALS = 3;
+
+    private final ShipGrid grid; //ship being searched, cells are the padded indices of ShipGrid
+    //PARENT = the jump point the cell was reached from (the cells in between lie on a straight line), COST = best known path length from
+    //the start, ARRIVALS = directions the cell was reached in at that cost, one bit per direction, they decide its successors
+    private final CellTable cells;
+    private final IntHeap open = new IntHeap();
+    private int epoch;
+    private int expansions; //number of jump points expanded by the last search
+    private int scanned; //number of cells looked at by the jumps of the last search
+
+    private SearchEngine.CellFilter filter; //filter and goal of the running search
+    private int goalCell;
+
+    public JumpPointSearch(ShipGrid grid) {
+        this.grid = grid;
+        this.cells = CellTable.create(grid.size(), 4);
+    }
+
+    public int getExpansions() {
+        return expansions;
+    }
+    public int getScanned() {
+        return scanned;
+    }
+
+    //finds a shortest path from startCell to goalCell that only steps onto open cells accepted by 'filter' (the start cell itself is never checked)
+    //returns the path cells without the start cell and with the goal cell, or null if the goal cannot be reached
+    public int[] search(int startCell, int goalCell, SearchEngine.CellFilter filter) {
+        epoch = cells.nextEpoch(epoch);
+        expansions = 0;
+        scanned = 0;
+        this.filter = filter;
+        this.goalCell = goalCell;
+        open.clear();
+
+        cells.set(startCell, STAMP, epoch);
+        cells.set(startCell, PARENT, -1);
+        cells.set(startCell, COST, 0);
+        cells.set(startCell, ARRIVALS, 0); //no arrival direction, the start looks in all four directions
+        open.push(startCell, grid.manhattan(startCell, goalCell));
+
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            if (cells.get(cell, STAMP) == -epoch) { //stale heap entry
+                continue;
+            }
+            cells.set(cell, STAMP, -epoch);
+            if (cell == goalCell) {
+                return rebuildPath(startCell, goalCell);
+            }
+            expansions++;
+
+            int directions = successorDirections(cell);
+            for (int direction = 0; direction < 4; direction++) {
+                if ((directions & (1 << direction)) == 0) {
+                    continue;
+                }
+                int jumpPoint = direction <= DOWN ? jumpVertically(cell, direction) : jumpHorizontally(cell, direction);
+                if (jumpPoint != -1) {
+                    relax(cell, jumpPoint, direction);
+                }
+            }
+        }
+        return null;
+    }
+
+    private int successorDirections(int cell) { //directions worth searching from 'cell', from the directions it was reached in
+        int arrived = cells.get(cell, ARRIVALS);
+        if (arrived == 0) {
+            return 0b1111;
+        }
+        int directions = 0;
+        for (int direction = 0; direction < 4; direction++) {
+            if ((arrived & (1 << direction)) == 0) {
+                continue;
+            }
+            if (direction <= DOWN) { //vertical arrival: straight on, or turn either way
+                directions |= 1 << direction | 1 << LEFT | 1 << RIGHT;
+            } else { //horizontal arrival: straight on, plus the forced turns
+                directions |= 1 << direction;
+                int back = grid.neighbor(cell, opposite(direction));
+                for (int vertical = UP; vertical <= DOWN; vertical++) {
+                    if (passable(grid.neighbor(cell, vertical)) && !passable(grid.neighbor(back, vertical))) {
+                        directions |= 1 << vertical;
+                    }
+                }
+            }
+        }
+        return directions;
+    }
+
+    private int jumpVertically(int cell, int direction) { //walks up or down from 'cell', returns the first jump point or -1
+        while (true) {
+            cell = grid.neighbor(cell, direction);
+            scanned++;
+            if (!passable(cell)) {
+                return -1;
+            }
+            if (cell == goalCell || jumpHorizontally(cell, LEFT) != -1 || jumpHorizontally(cell, RIGHT) != -1) {
+                return cell;
+            }
+        }
+    }
+
+    private int jumpHorizontally(int cell, int direction) { //walks left or right from 'cell', returns the first jump point or -1
+        while (true) {
+            int back = cell;
+            cell = grid.neighbor(cell, direction);
+            scanned++;
+            if (!passable(cell)) {
+                return -1;
+            }
+            if (cell == goalCell) {
+                return cell;
+            }
+            for (int vertical = UP; vertical <= DOWN; vertical++) {
+                if (passable(grid.neighbor(cell, vertical)) && !passable(grid.neighbor(back, vertical))) {
+                    return cell; //forced turn
+                }
+            }
+        }
+    }
+
+    private void relax(int from, int cell, int direction) {
+        int nextCost = cells.get(from, COST) + grid.manhattan(from, cell); //jumps are straight, so their length is the Manhattan distance
+        int stamp = cells.get(cell, STAMP);
+        if ((stamp != epoch && stamp != -epoch) || nextCost < cells.get(cell, COST)) {
+            cells.set(cell, STAMP, epoch); //reopen if it was expanded through a longer path
+            cells.set(cell, PARENT, from);
+            cells.set(cell, COST, nextCost);
+            cells.set(cell, ARRIVALS, 1 << direction);
+            open.push(cell, nextCost + grid.manhattan(cell, goalCell));
+        } else if (nextCost == cells.get(cell, COST) && (cells.get(cell, ARRIVALS) & (1 << direction)) == 0) {
+            //an equally short arrival from another direction can open other successors, so the cell is expanded again with both
+            cells.set(cell, ARRIVALS, cells.get(cell, ARRIVALS) | 1 << direction);
+            cells.set(cell, STAMP, epoch);
+            open.push(cell, nextCost + grid.manhattan(cell, goalCell));
+        }
+    }
+
+    private boolean passable(int cell) { //open and accepted by the filter, the border is never open
+        return grid.isOpen(cell) && filter.canEnter(cell);
+    }
+
+    private int[] rebuildPath(int startCell, int goalCell) { //walks the jump points back from the goal and fills in the straight runs between them
+        int[] path = new int[cells.get(goalCell, COST)];
+        int i = path.length;
+        int stride = grid.getStride();
+        for (int cell = goalCell; cell != startCell; ) {
+            int from = cells.get(cell, PARENT);
+            int step = Math.abs(cell - from) < stride ? Integer.signum(cell - from) : Integer.signum(cell - from) * stride;
+            for (int c = cell; c != from; c -= step) {
+                path[--i] = c;
+            }
+            cell = from;
+        }
+        return path;
+    }
+
+    private static int opposite(int direction) {
+        return direction ^ 1; //UP <-> DOWN, LEFT <-> RIGHT
+    }
+}
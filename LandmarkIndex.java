@@ -0,0 +1,102 @@
+import java.util.*;
+
+//ALT (A*, landmarks, triangle inequality) heuristic for one ship layout: BFS distances over the open cells from a few landmark cells.
+//for any landmark L, |d(L, goal) - d(L, cell)| <= d(cell, goal), and the fire and the visited cells only ever remove cells, so the
+//bound holds for every planner filter on every tick. On maze-like layouts it is far tighter than the Manhattan distance, which ignores
+//the walls. The index only depends on the open plane, it is built once per layout (ShipGenerator.getLandmarks) and never modified
+public class LandmarkIndex {
+    public static final int DEFAULT_LANDMARKS = 8;
+    private static final int UNREACHABLE = 0xFFFF; //distances are unsigned shorts, this one marks cells in another part of the ship
+
+    private final int landmarks; //number of landmarks
+    private final int[] landmarkCells;
+    //distance[cell * landmarks + i] = BFS distance from landmark i to 'cell', the landmarks of a cell are side by side so one lookup of
+    //the heuristic reads one or two cache lines. Distances above 0xFFFE are clamped to it, which can only make the bound looser
+    private final short[] distance;
+
+    public LandmarkIndex(ShipGrid grid) {
+        this(grid, DEFAULT_LANDMARKS);
+    }
+
+    //picks up to 'landmarks' landmarks by farthest point selection: the first is the open cell farthest from the first open cell, every
+    //next one the open cell farthest from all landmarks so far, which spreads them out over the edges of the ship where they bound best
+    public LandmarkIndex(ShipGrid grid, int landmarks) {
+        int open = grid.countOpen();
+        this.landmarks = Math.max(1, Math.min(landmarks, open));
+        this.landmarkCells = new int[this.landmarks];
+        this.distance = new short[grid.size() * this.landmarks];
+        Arrays.fill(distance, (short) UNREACHABLE);
+        if (open == 0) {
+            return;
+        }
+
+        int[] scratch = new int[grid.size()]; //BFS distances of the current landmark
+        int[] nearest = new int[grid.size()]; //distance from every cell to its nearest landmark so far
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        IntQueue queue = new IntQueue();
+        int first = 0;
+        while (!grid.isOpen(first)) {
+            first++;
+        }
+        int next = bfs(grid, first, scratch, queue);
+        for (int i = 0; i < this.landmarks; i++) {
+            landmarkCells[i] = next;
+            bfs(grid, next, scratch, queue);
+            next = -1;
+            int farthest = -1;
+            for (int cell = 0; cell < scratch.length; cell++) {
+                if (scratch[cell] < 0) {
+                    continue;
+                }
+                distance[cell * this.landmarks + i] = (short) Math.min(scratch[cell], UNREACHABLE - 1);
+                nearest[cell] = Math.min(nearest[cell], scratch[cell]);
+                if (nearest[cell] > farthest) {
+                    farthest = nearest[cell];
+                    next = cell;
+                }
+            }
+        }
+    }
+
+    //fills 'distances' with the BFS distance of every cell from 'start' (-1 if it cannot be reached) and returns the farthest cell
+    private static int bfs(ShipGrid grid, int start, int[] distances, IntQueue queue) {
+        Arrays.fill(distances, -1);
+        distances[start] = 0;
+        queue.clear();
+        queue.add(start);
+        int cell = start;
+        while (!queue.isEmpty()) {
+            cell = queue.poll();
+            for (int mask = grid.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+                int neighbor = grid.neighbor(cell, Integer.numberOfTrailingZeros(mask));
+                if (distances[neighbor] < 0) {
+                    distances[neighbor] = distances[cell] + 1;
+                    queue.add(neighbor);
+                }
+            }
+        }
+        return cell; //the last cell polled is one of the farthest
+    }
+
+    //a lower bound on the number of steps from 'cell' to 'goal', the largest one of the landmarks that can reach both.
+    //consistent (it changes by at most 1 per step), so A* with it never expands a cell twice
+    public int lowerBound(int cell, int goal) {
+        int bound = 0;
+        int cellBase = cell * landmarks, goalBase = goal * landmarks;
+        for (int i = 0; i < landmarks; i++) {
+            int fromCell = distance[cellBase + i] & 0xFFFF; //read as unsigned
+            int fromGoal = distance[goalBase + i] & 0xFFFF;
+            if (fromCell != UNREACHABLE && fromGoal != UNREACHABLE) {
+                bound = Math.max(bound, Math.abs(fromCell - fromGoal));
+            }
+        }
+        return bound;
+    }
+
+    public int getLandmarks() {
+        return landmarks;
+    }
+    public int getLandmarkCell(int i) {
+        return landmarkCells[i];
+    }
+}
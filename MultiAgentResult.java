@@ -0,0 +1,78 @@
+import java.util.*;
+
+public final class MultiAgentResult { //outcome of every bot of one MultiAgentSimulation, and the cost of the whole run
+    private final SimulationResult.Outcome[] outcomes; //outcomes[bot], SUCCESS once the bot reached a button that was not burning
+    private final int[] ticks; //ticks[bot] = fire spread steps taken before the bot's outcome was decided
+    private final int totalTicks; //ticks until the last bot was decided
+    private final long expansions; //cells expanded by the searches of all bots
+    private final long replans; //number of searches, a bot whose path is still passable does not search
+    private final int peakFire;
+    private final long wallNanos; //time spent in the whole simulation...
+    private final long planningNanos; //...of which in the (parallel) planning phases...
+    private final long spreadNanos; //...and in spreading the fire
+
+    public MultiAgentResult(SimulationResult.Outcome[] outcomes, int[] ticks, int totalTicks, long expansions, long replans, int peakFire,
+                            long wallNanos, long planningNanos, long spreadNanos) {
+        this.outcomes = outcomes;
+        this.ticks = ticks;
+        this.totalTicks = totalTicks;
+        this.expansions = expansions;
+        this.replans = replans;
+        this.peakFire = peakFire;
+        this.wallNanos = wallNanos;
+        this.planningNanos = planningNanos;
+        this.spreadNanos = spreadNanos;
+    }
+
+    public int getBots() {
+        return outcomes.length;
+    }
+    public SimulationResult.Outcome getOutcome(int bot) {
+        return outcomes[bot];
+    }
+    public int getTicks(int bot) {
+        return ticks[bot];
+    }
+    public int count(SimulationResult.Outcome outcome) { //number of bots that ended with 'outcome'
+        int count = 0;
+        for (SimulationResult.Outcome botOutcome : outcomes) {
+            if (botOutcome == outcome) {
+                count++;
+            }
+        }
+        return count;
+    }
+    public int getTotalTicks() {
+        return totalTicks;
+    }
+    public long getExpansions() {
+        return expansions;
+    }
+    public long getReplans() {
+        return replans;
+    }
+    public int getPeakFire() {
+        return peakFire;
+    }
+    public long getWallNanos() {
+        return wallNanos;
+    }
+    public long getPlanningNanos() {
+        return planningNanos;
+    }
+    public long getSpreadNanos() {
+        return spreadNanos;
+    }
+
+    public boolean sameOutcomes(MultiAgentResult other) { //true if every bot ended the same way on the same tick, timings aside
+        return Arrays.equals(outcomes, other.outcomes) && Arrays.equals(ticks, other.ticks);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d bots: %d succeeded, %d burned, %d stuck, %d timed out after %d ticks, %d replans expanding %d cells, peak fire %d,"
+                        + " %.3f ms (planning %.3f ms, spread %.3f ms)",
+                outcomes.length, count(SimulationResult.Outcome.SUCCESS), count(SimulationResult.Outcome.BURNED), count(SimulationResult.Outcome.STUCK),
+                count(SimulationResult.Outcome.TIMEOUT), totalTicks, replans, expansions, peakFire, wallNanos / 1e6, planningNanos / 1e6, spreadNanos / 1e6);
+    }
+}
@@ -0,0 +1,206 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+//many bots, buttons and initial fires on one ship, laid out by ShipGenerator's multi agent constructor. One FireEngine spreads the fire
+//once per tick and every bot sees that same fire. A tick runs in phases: first every bot still in play plans its next step, in parallel
+//on a ForkJoinPool, while nothing changes the fire, so the fire plane and the danger grid are a read-only snapshot shared by all planners.
+//then the bots move, the fire spreads, and the bots whose cell caught fire burn. Planning only reads the shared state and writes the
+//planning bot's own entries, so the outcome does not depend on the number of threads.
+//every bot heads for the nearest button that is not burning (SearchEngine.searchNearest), avoiding the cells next to the fire like
+//Bot Four and only passing next to it when there is no other way, one step per tick. Bots do not block each other and a button takes
+//any number of them. A bot keeps its path while every cell ahead is still passable: the fire only grows, so that path is still a
+//shortest one, and on most ticks a bot checks its path instead of searching again
+public class MultiAgentSimulation {
+    private final ShipGrid ship; //a private copy of the layout, the fire spreads on it
+    private final FireEngine fireEngine;
+    private final BitSet buttons; //cells with a button, only read while planning
+    private int buttonsLeft; //buttons that are not burning yet
+    private final int parallelism; //planning threads, 1 plans on the calling thread
+    private final ThreadLocal<SearchEngine> searchEngines; //a search engine on 'ship' for every planning thread, each keeps its own search state
+    private final SearchEngine.CellFilter openButton; //a button that is not burning
+    private final SearchEngine.CellFilter clear; //neither the cell nor its 8 neighbors are burning
+    private final SearchEngine.CellFilter notBurning;
+
+    //the bots are kept as parallel arrays indexed by bot number, the planning phase only writes the entries of the bot it plans
+    private final int[] position;
+    private final int[][] path; //planned path of every bot (as returned by SearchEngine), null until it plans
+    private final int[] pathIndex; //index of the bot's next cell in its path
+    private final boolean[] nearFire; //true if the path had to pass next to the fire
+    private final int[] next; //the cell the bot moves to this tick, -1 if it cannot reach a button
+    private final long[] expansions, replans; //per bot, added up once the simulation ends
+    private final SimulationResult.Outcome[] outcome; //null while the bot is in play
+    private final int[] ticks; //tick on which the bot's outcome was decided
+    private final int[] active; //bots still in play, the first activeCount entries
+    private int activeCount;
+
+    //simulates a copy of 'layout' (not modified), with a fire of spread probability 'q' drawn from 'seed', planning on 'parallelism' threads
+    public MultiAgentSimulation(ShipGenerator layout, double q, long seed, int parallelism) {
+        this.ship = new ShipGrid(layout.getShip());
+        this.fireEngine = new FireEngine(ship, q, RandomStream.of(seed));
+        for (int cell : layout.getFireCells()) {
+            fireEngine.ignite(cell);
+        }
+        this.buttons = new BitSet(ship.size());
+        for (int cell : layout.getButtonCells()) {
+            buttons.set(cell);
+        }
+        this.buttonsLeft = layout.getButtonCells().length;
+        this.parallelism = parallelism;
+        this.searchEngines = ThreadLocal.withInitial(() -> new SearchEngine(ship));
+        this.openButton = cell -> buttons.get(cell) && !ship.isFire(cell);
+        this.clear = cell -> !fireEngine.isAdjacentToFire(cell);
+        this.notBurning = cell -> !ship.isFire(cell);
+
+        int bots = layout.getBotCells().length;
+        this.position = layout.getBotCells().clone();
+        this.path = new int[bots][];
+        this.pathIndex = new int[bots];
+        this.nearFire = new boolean[bots];
+        this.next = new int[bots];
+        this.expansions = new long[bots];
+        this.replans = new long[bots];
+        this.outcome = new SimulationResult.Outcome[bots];
+        this.ticks = new int[bots];
+        this.active = new int[bots];
+        for (int bot = 0; bot < bots; bot++) {
+            active[activeCount++] = bot;
+        }
+    }
+
+    public MultiAgentResult run() { //runs until every bot is decided or ShipBots.MAX_ITERATIONS ticks have passed, a simulation runs only once
+        long start = System.nanoTime();
+        long planningNanos = 0, spreadNanos = 0;
+        int tick = 0;
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            while (activeCount > 0 && tick < ShipBots.MAX_ITERATIONS) {
+                long planStart = System.nanoTime();
+                if (pool == null) {
+                    for (int i = 0; i < activeCount; i++) {
+                        plan(active[i]);
+                    }
+                } else {
+                    pool.submit(() -> IntStream.range(0, activeCount).parallel().forEach(i -> plan(active[i]))).join();
+                }
+                planningNanos += System.nanoTime() - planStart;
+
+                for (int i = 0; i < activeCount; i++) { //the moves, like Bot Five a bot on a button has won before the fire spreads
+                    int bot = active[i];
+                    if (next[bot] < 0) {
+                        decide(bot, buttonsLeft == 0 ? SimulationResult.Outcome.BURNED : SimulationResult.Outcome.STUCK, tick);
+                    } else {
+                        position[bot] = next[bot];
+                        if (buttons.get(position[bot])) {
+                            decide(bot, SimulationResult.Outcome.SUCCESS, tick);
+                        }
+                    }
+                }
+                compactActive();
+
+                long spreadStart = System.nanoTime();
+                fireEngine.step();
+                for (int i = 0; i < fireEngine.getIgnitedCount(); i++) {
+                    if (buttons.get(fireEngine.getIgnited(i))) {
+                        buttonsLeft--;
+                    }
+                }
+                spreadNanos += System.nanoTime() - spreadStart;
+
+                for (int i = 0; i < activeCount; i++) {
+                    if (ship.isFire(position[active[i]])) {
+                        decide(active[i], SimulationResult.Outcome.BURNED, tick);
+                    }
+                }
+                compactActive();
+                tick++;
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        for (int i = 0; i < activeCount; i++) {
+            decide(active[i], SimulationResult.Outcome.TIMEOUT, tick);
+        }
+        activeCount = 0;
+
+        long totalExpansions = 0, totalReplans = 0;
+        for (int bot = 0; bot < position.length; bot++) {
+            totalExpansions += expansions[bot];
+            totalReplans += replans[bot];
+        }
+        return new MultiAgentResult(outcome.clone(), ticks.clone(), tick, totalExpansions, totalReplans, fireEngine.getBurningCount(),
+                System.nanoTime() - start, planningNanos, spreadNanos);
+    }
+
+    //picks the bot's next cell: the next cell of its path while the rest of the path is still passable, otherwise the first cell of a
+    //new path to the nearest button, planned away from the fire if possible. Runs on any planning thread
+    private void plan(int bot) {
+        int[] botPath = path[bot];
+        if (botPath == null || !isPassable(botPath, pathIndex[bot], nearFire[bot])) {
+            SearchEngine searchEngine = searchEngines.get();
+            botPath = searchEngine.searchNearest(position[bot], openButton, clear);
+            nearFire[bot] = botPath == null;
+            expansions[bot] += searchEngine.getExpansions();
+            replans[bot]++;
+            if (botPath == null) {
+                botPath = searchEngine.searchNearest(position[bot], openButton, notBurning);
+                expansions[bot] += searchEngine.getExpansions();
+                replans[bot]++;
+            }
+            path[bot] = botPath;
+            pathIndex[bot] = 0;
+        }
+        next[bot] = botPath == null ? -1 : botPath[pathIndex[bot]++];
+    }
+
+    private boolean isPassable(int[] botPath, int from, boolean nearFire) { //true if the cells from 'from' on still pass the filter the path was planned with
+        SearchEngine.CellFilter filter = nearFire ? notBurning : clear;
+        for (int i = from; i < botPath.length; i++) {
+            if (!filter.canEnter(botPath[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void decide(int bot, SimulationResult.Outcome botOutcome, int tick) {
+        outcome[bot] = botOutcome;
+        ticks[bot] = tick;
+    }
+
+    private void compactActive() { //drops the decided bots from the active list, keeping the others in order
+        int kept = 0;
+        for (int i = 0; i < activeCount; i++) {
+            if (outcome[active[i]] == null) {
+                active[kept++] = active[i];
+            }
+        }
+        activeCount = kept;
+    }
+
+    public static void main(String[] args) {
+        //usage: java MultiAgentSimulation [size] [bots] [buttons] [fires] [q] [seed] [threads] [--verify]
+        //--verify runs the same simulation on one thread as well and checks that every bot ended the same way
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int bots = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int buttons = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int fires = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        double q = args.length > 4 ? Double.parseDouble(args[4]) : 0.3;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 1L;
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+        boolean verify = Arrays.asList(args).contains("--verify");
+
+        ShipGenerator layout = new ShipGenerator(size, size, seed, bots, buttons, fires);
+        MultiAgentResult result = new MultiAgentSimulation(layout, q, seed, threads).run();
+        System.out.printf("%dx%d ship, %d buttons, %d fires, q = %.2f, %d threads%n", size, size, buttons, fires, q, threads);
+        System.out.println(result);
+
+        if (verify) {
+            MultiAgentResult sequential = new MultiAgentSimulation(layout, q, seed, 1).run();
+            System.out.println(sequential);
+            System.out.println(result.sameOutcomes(sequential) ? "Sequential run matches." : "Sequential run does NOT match!");
+        }
+    }
+}
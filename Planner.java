@@ -0,0 +1,23 @@
+//plans paths over a simulation's ship, every bot gets its planners from ShipBots (getPlainPlanner() ...) or brings its own through ShipBots.addPlanner
+public interface Planner {
+    //returns a path from 'start' to 'goal' without the start cell and with the goal cell, or null if there is none. Same contract as SearchEngine.search
+    int[] plan(int start, int goal);
+
+    int getExpansions(); //cells expanded by the last plan
+
+    //true if the last plan ran out of the simulation's PlanningBudget: its path then ends at the cell closest to the goal the plan reached,
+    //not at the goal, and must not be taken for a way to it. Planners that ignore the budget always plan to completion
+    default boolean isPartial() {
+        return false;
+    }
+
+    default void cellChanged(int cell) { //the passability of 'cell' may have changed (it was visited, or the fire reached its 3x3 block)
+    }
+
+    default boolean wantsCellChanges() { //planners that keep state between plans return true, the others are not told about every changed cell
+        return false;
+    }
+
+    default void reset() { //a new simulation starts on the same ship, any state kept between plans is stale
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.*;
+
+//checks that every planner finds paths exactly as short as SearchEngine's uniform cost search, the reference the other planners were
+//written against. On every layout a bot walks from its cell to the button along the reference paths, marking the cells it leaves
+//impassable like Bot Two does, while random cells get blocked (and a few opened again) around it. The stateful planners hear of every
+//change through cellChanged, like in ShipBots. After every change all planners plan the same (start, goal), and a plan passes when it is
+//null exactly when the reference's is, and otherwise has the same length and is a valid path: every step enters an open neighbor of the
+//previous cell that the filter accepts, and the last step enters the goal. Run through ExperimentRunner --check-planners
+public final class PlannerCheck {
+    private static final int MAX_STEPS = 400; //steps the bot walks per layout at most
+    private static final int BLOCKS_PER_STEP = 3; //random open cells blocked before every plan
+    private static final double UNBLOCK_CHANCE = 0.2; //chance per step that a blocked cell opens again, so the incremental planners see both kinds of change
+    private static final int MAX_REPORTED = 10; //mismatches printed in full, the rest only counted
+
+    //the planners under test, the names of the ShipBots.PlannerMode they back (FULL_SEARCH is SearchEngine's A*)
+    private static final String[] PLANNERS = {"FULL_SEARCH", "LANDMARK", "BIDIRECTIONAL", "JUMP_POINT", "INCREMENTAL", "CORRIDOR"};
+
+    private final long[] plans = new long[PLANNERS.length];
+    private final long[] mismatches = new long[PLANNERS.length];
+    private long reported;
+
+    //checks the planners on the layouts of trials 0 .. layouts - 1 of an ExperimentRunner with 'masterSeed', prints a line per planner
+    //and returns true if every plan matched the reference
+    public static boolean check(int rows, int cols, int layouts, long masterSeed) {
+        PlannerCheck check = new PlannerCheck();
+        for (int trial = 0; trial < layouts; trial++) {
+            long layoutSeed = ExperimentRunner.trialSeed(masterSeed, trial);
+            check.checkLayout(new ShipGenerator(rows, cols, layoutSeed), trial, ExperimentRunner.trialSeed(layoutSeed, 0));
+        }
+
+        boolean passed = true;
+        System.out.println("planner\tplans\tmismatches");
+        for (int i = 0; i < PLANNERS.length; i++) {
+            System.out.printf("%s\t%d\t%d%n", PLANNERS[i], check.plans[i], check.mismatches[i]);
+            passed &= check.mismatches[i] == 0;
+        }
+        System.out.println(passed ? "Every planner matches the uniform cost search." : "Some planners do NOT match the uniform cost search!");
+        return passed;
+    }
+
+    private void checkLayout(ShipGenerator layout, int trial, long seed) {
+        ShipGrid grid = layout.getShip();
+        BitSet blocked = new BitSet(grid.size());
+        SearchEngine.CellFilter filter = cell -> !blocked.get(cell);
+        int start = layout.getBotCell(), goal = layout.getButtonCell();
+
+        SearchEngine reference = new SearchEngine(grid), search = new SearchEngine(grid);
+        LandmarkIndex landmarks = layout.getLandmarks();
+        BidirectionalSearch bidirectional = new BidirectionalSearch(grid);
+        JumpPointSearch jumpPoint = new JumpPointSearch(grid);
+        IncrementalPlanner incremental = new IncrementalPlanner(grid, goal, filter);
+        CorridorPlanner corridor = new CorridorPlanner(layout.getCorridors(), filter);
+
+        int[] openCells = new int[grid.size()];
+        int openCount = 0;
+        for (int cell = 0; cell < grid.size(); cell++) {
+            if (grid.isOpen(cell)) {
+                openCells[openCount++] = cell;
+            }
+        }
+        int[] blockedCells = new int[openCount]; //the randomly blocked cells, the ones that may open again
+        int blockedCount = 0;
+        RandomStream random = RandomStream.of(seed);
+
+        for (int step = 0; step < MAX_STEPS && start != goal; step++) {
+            for (int i = 0; i < BLOCKS_PER_STEP; i++) {
+                int cell = openCells[random.nextInt(openCount)];
+                if (cell != start && cell != goal && !blocked.get(cell)) {
+                    blocked.set(cell);
+                    blockedCells[blockedCount++] = cell;
+                    incremental.cellChanged(cell);
+                    corridor.cellChanged(cell);
+                }
+            }
+            if (blockedCount > 0 && random.nextDouble() < UNBLOCK_CHANCE) {
+                int i = random.nextInt(blockedCount);
+                int cell = blockedCells[i];
+                blockedCells[i] = blockedCells[--blockedCount];
+                blocked.clear(cell);
+                incremental.cellChanged(cell);
+                corridor.cellChanged(cell);
+            }
+
+            int[] expected = reference.search(start, goal, filter, false);
+            compare(0, search.search(start, goal, filter, true), expected, grid, filter, start, goal, trial, step);
+            compare(1, search.search(start, goal, filter, null, landmarks), expected, grid, filter, start, goal, trial, step);
+            compare(2, bidirectional.search(start, goal, filter), expected, grid, filter, start, goal, trial, step);
+            compare(3, jumpPoint.search(start, goal, filter), expected, grid, filter, start, goal, trial, step);
+            compare(4, incremental.plan(start), expected, grid, filter, start, goal, trial, step);
+            compare(5, corridor.plan(start, goal), expected, grid, filter, start, goal, trial, step);
+            if (expected == null) {
+                break;
+            }
+
+            blocked.set(start); //the bot leaves the cell for good, like a visited cell it never opens again
+
+            incremental.cellChanged(start);
+            corridor.cellChanged(start);
+            start = expected[0];
+        }
+    }
+
+    private void compare(int planner, int[] path, int[] expected, ShipGrid grid, SearchEngine.CellFilter filter, int start, int goal, int trial, int step) {
+        plans[planner]++;
+        String problem = null;
+        if ((path == null) != (expected == null)) {
+            problem = path == null ? "no path, the reference found one of " + expected.length + " steps" : "a path of " + path.length + " steps, the reference found none";
+        } else if (path != null && path.length != expected.length) {
+            problem = path.length + " steps instead of " + expected.length;
+        } else if (path != null && !isValid(grid, filter, start, goal, path)) {
+            problem = "an invalid path of " + path.length + " steps";
+        }
+        if (problem != null) {
+            mismatches[planner]++;
+            if (reported++ < MAX_REPORTED) {
+                System.out.printf("%s on trial %d, step %d (%s -> %s): %s%n", PLANNERS[planner], trial, step, cellName(grid, start), cellName(grid, goal), problem);
+            }
+        }
+    }
+
+    private static boolean isValid(ShipGrid grid, SearchEngine.CellFilter filter, int start, int goal, int[] path) {
+        int cell = start;
+        for (int next : path) {
+            if (!isNeighbor(grid, cell, next) || !grid.isOpen(next) || !filter.canEnter(next)) {
+                return false;
+            }
+            cell = next;
+        }
+        return cell == goal;
+    }
+
+    private static boolean isNeighbor(ShipGrid grid, int cell, int other) {
+        for (int direction = 0; direction < 4; direction++) {
+            if (grid.neighbor(cell, direction) == other) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String cellName(ShipGrid grid, int cell) { //(row, col) of the ship, without the border
+        return "(" + (cell / grid.getStride() - 1) + ", " + (cell % grid.getStride() - 1) + ")";
+    }
+}
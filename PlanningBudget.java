@@ -0,0 +1,58 @@
+//anytime planning budget of a ShipBots: how many cells its planners may expand on one tick. A plan that runs out of it returns a partial
+//path towards the goal instead of searching on (see SearchEngine.setBudget), and the bot walks that path while later ticks plan again.
+//a fixed budget (expansions) gives the same simulation on every run. A time budget (nanos) turns a target planning time per tick into
+//expansions through the measured cost of one expansion on the past plans, a moving average, so the planning time of a tick stays near
+//the target whatever the ship size and the machine; the simulation then depends on the timings and is not reproducible
+public final class PlanningBudget {
+    static final int MIN_EXPANSIONS = 64; //every plan gets at least this many, whatever the tick's earlier plans used, so a bot always gets a first step
+    private static final double INITIAL_NANOS_PER_EXPANSION = 100; //guess for the first tick, before any plan was measured
+    private static final double SMOOTHING = 0.2; //weight of the newest plan in the moving average
+
+    private final int fixedExpansions; //per tick, 0 for a time budget
+    private final long tickNanos; //target planning time per tick, 0 for a fixed budget
+    private double nanosPerExpansion = INITIAL_NANOS_PER_EXPANSION;
+    private int remaining; //expansions left on the running tick
+
+    private PlanningBudget(int fixedExpansions, long tickNanos) {
+        if (fixedExpansions < 0 || tickNanos < 0 || (fixedExpansions == 0) == (tickNanos == 0)) {
+            throw new IllegalArgumentException("A planning budget needs a positive number of expansions or nanoseconds per tick");
+        }
+        this.fixedExpansions = fixedExpansions;
+        this.tickNanos = tickNanos;
+    }
+
+    public static PlanningBudget expansions(int perTick) {
+        return new PlanningBudget(perTick, 0);
+    }
+
+    public static PlanningBudget nanos(long perTick) {
+        return new PlanningBudget(0, perTick);
+    }
+
+    public int getExpansionsPerTick() { //the fixed budget, or the target time divided by the current cost of an expansion
+        if (fixedExpansions > 0) {
+            return fixedExpansions;
+        }
+        return (int) Math.max(MIN_EXPANSIONS, Math.min(Integer.MAX_VALUE, tickNanos / nanosPerExpansion));
+    }
+    public double getNanosPerExpansion() {
+        return nanosPerExpansion;
+    }
+
+    //the calls below are made by ShipBots: startTick before the policy moves, nextPlan and charge around every plan
+
+    void startTick() {
+        remaining = getExpansionsPerTick();
+    }
+
+    int nextPlan() { //expansions the next plan may use
+        return Math.max(remaining, MIN_EXPANSIONS);
+    }
+
+    void charge(int expansions, long nanos) { //books a finished plan, the whole plan time counts so work beyond the search (e.g. the fire arrival field) shrinks the budget too
+        remaining = Math.max(0, remaining - expansions);
+        if (tickNanos > 0 && expansions > 0) {
+            nanosPerExpansion += SMOOTHING * ((double) nanos / expansions - nanosPerExpansion);
+        }
+    }
+}
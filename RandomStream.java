@@ -0,0 +1,46 @@
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+//the random numbers of one trial's layout or fire: a generator of RandomGeneratorFactory, L64X128MixRandom unless another algorithm is
+//named. Unlike java.util.Random it has no atomically updated seed, so trials on parallel threads never contend on it. Every stream is
+//seeded on its own from a trial seed (ExperimentRunner.trialSeed hashes the master seed, the trial and the q index), nothing is split
+//off a shared root, so a trial draws the same numbers on every run, whatever the thread or the shard that runs it
+public final class RandomStream {
+    public static final String DEFAULT_ALGORITHM = "L64X128MixRandom"; //an LXM generator: a 64 bit LCG and a xoroshiro128 combined by a mixing function
+    private static final RandomGeneratorFactory<RandomGenerator> DEFAULT_FACTORY = RandomGeneratorFactory.of(DEFAULT_ALGORITHM);
+
+    private final RandomGenerator generator;
+
+    private RandomStream(RandomGenerator generator) {
+        this.generator = generator;
+    }
+
+    public static RandomStream of(long seed) { //the default algorithm seeded with 'seed', the same seed always gives the same stream
+        return new RandomStream(DEFAULT_FACTORY.create(seed));
+    }
+
+    public static RandomStream of(String algorithm, long seed) { //any algorithm of RandomGeneratorFactory, e.g. "L128X256MixRandom", an unknown name throws IllegalArgumentException
+        return new RandomStream(RandomGeneratorFactory.of(algorithm).create(seed));
+    }
+
+    public static RandomStream unseeded() { //seeded from the system's entropy, for the constructors that do not take a seed
+        return new RandomStream(DEFAULT_FACTORY.create());
+    }
+
+    public int nextInt(int bound) { //uniform in [0, bound)
+        return generator.nextInt(bound);
+    }
+
+    public double nextDouble() { //uniform in [0, 1)
+        return generator.nextDouble();
+    }
+
+    //convenience wrapper, a plain loop of 'count' nextDouble calls into into[0 .. count - 1]: the same numbers in the same order, and the
+    //stream ends up where those calls would leave it. It is no faster than calling nextDouble per candidate, it only lets FireEngine
+    //draw a step's candidates before it walks them
+    public void nextDoubles(double[] into, int count) {
+        for (int i = 0; i < count; i++) {
+            into[i] = generator.nextDouble();
+        }
+    }
+}
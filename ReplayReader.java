@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+//plays back a replay log written by ReplayWriter (see there for the format) from a memory-mapped file.
+//seek(tick) restores the nearest keyframe at or before 'tick' and replays at most a keyframe interval of ticks from there
+public class ReplayReader {
+    private final ByteBuffer log;
+    private final ShipGrid ship; //the layout with the fire as of the current tick, the visited plane is not recorded
+    private final int buttonCell;
+    private final double q;
+    private int[] keyframeTicks = new int[16];
+    private int[] keyframeOffsets = new int[16];
+    private int keyframes;
+
+    private int tick; //ticks replayed so far
+    private int position; //the bot's cell
+    private int lastIgnition; //previous value of the difference encoded ignitions
+    private int[] moves = new int[16], ignitions = new int[16]; //moves and ignitions of the last replayed tick
+    private int moveCount, ignitionCount;
+    private SimulationResult.Outcome outcome; //null until the END record was read (and for a log cut short)
+    private int resultTicks;
+
+    public ReplayReader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            this.log = buffer;
+        }
+        if (log.remaining() < 4 * ReplayWriter.HEADER_INTS + 8 || log.getInt() != ReplayWriter.MAGIC || log.getInt() != ReplayWriter.VERSION) {
+            throw new IOException("Not a replay log: " + file);
+        }
+        this.ship = new ShipGrid(log.getInt(), log.getInt());
+        int buttonRow = log.getInt(), buttonCol = log.getInt();
+        this.buttonCell = ship.index(buttonRow, buttonCol);
+        log.getInt(); //keyframe interval, the index has the keyframes themselves
+        this.q = log.getDouble();
+        if (log.remaining() < 8 * ship.openPlaneWords()) {
+            throw new IOException("Truncated replay log: " + file);
+        }
+        ship.readOpenPlane(log.asLongBuffer());
+        log.position(log.position() + 8 * ship.openPlaneWords());
+
+        int records = log.position();
+        int end = log.limit();
+        if (end - records >= 12 && log.getInt(end - 4) == ReplayWriter.MAGIC) {
+            readIndex((int) log.getLong(end - 12));
+        } else {
+            scanKeyframes(records); //no index, the recording was cut short
+        }
+        if (keyframes == 0 || keyframeTicks[0] != 0) {
+            throw new IOException("Replay log without a first keyframe: " + file);
+        }
+        readKeyframe(keyframeOffsets[0]);
+    }
+
+    private void readIndex(int offset) {
+        log.position(offset);
+        log.get(); //INDEX tag
+        int count = (int) getVarint();
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int keyframeTick = (int) getVarint();
+            previous += (int) getVarint();
+            addKeyframe(keyframeTick, previous);
+        }
+    }
+
+    private void scanKeyframes(int offset) { //finds the keyframes by reading every complete record
+        log.position(offset);
+        try {
+            while (log.hasRemaining()) {
+                int start = log.position();
+                int tag = log.get();
+                if (tag == ReplayWriter.KEYFRAME) {
+                    addKeyframe(skipKeyframe(), start);
+                } else if (tag == ReplayWriter.TICK) {
+                    for (int pass = 0; pass < 2; pass++) { //moves, then ignitions
+                        for (long count = getVarint(); count > 0; count--) {
+                            getVarint();
+                        }
+                    }
+                } else {
+                    return;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            //the last record is incomplete, everything before it is usable
+        }
+    }
+
+    private void addKeyframe(int keyframeTick, int offset) {
+        if (keyframes == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+        }
+        keyframeTicks[keyframes] = keyframeTick;
+        keyframeOffsets[keyframes++] = offset;
+    }
+
+    //moves to the state after 'tick' ticks (or the last tick, if the log is shorter), from the nearest keyframe before it
+    public void seek(int tick) {
+        int keyframe = 0;
+        while (keyframe + 1 < keyframes && keyframeTicks[keyframe + 1] <= tick) {
+            keyframe++;
+        }
+        if (this.tick > tick || this.tick < keyframeTicks[keyframe]) { //replaying from the current tick is cheaper when it lies between the keyframe and 'tick'
+            readKeyframe(keyframeOffsets[keyframe]);
+        }
+        while (this.tick < tick && nextTick()) {
+        }
+    }
+
+    private void readKeyframe(int offset) {
+        log.position(offset);
+        log.get(); //KEYFRAME tag
+        tick = (int) getVarint();
+        position = (int) getVarint();
+        lastIgnition = (int) getVarint();
+        ship.clearFire();
+        for (int word = 0; word < ship.openPlaneWords(); word++) {
+            for (long bits = getVarint(); bits != 0; bits &= bits - 1) {
+                ship.ignite((word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        moveCount = 0;
+        ignitionCount = 0;
+    }
+
+    private int skipKeyframe() { //reads past a keyframe after its tag, returns its tick
+        int keyframeTick = (int) getVarint();
+        for (int i = 0; i < 2 + ship.openPlaneWords(); i++) {
+            getVarint();
+        }
+        return keyframeTick;
+    }
+
+    //replays the next tick, false at the end of the log (its outcome is then known, unless the recording was cut short)
+    public boolean nextTick() {
+        int start = log.position();
+        try {
+            while (log.hasRemaining()) {
+                start = log.position();
+                int tag = log.get();
+                if (tag == ReplayWriter.KEYFRAME) {
+                    skipKeyframe(); //it holds the current state
+                } else if (tag == ReplayWriter.TICK) {
+                    //decoded completely before anything is applied, so an incomplete last tick leaves the state alone
+                    int moveCount = (int) getVarint();
+                    int cell = position;
+                    for (int i = 0; i < moveCount; i++) {
+                        cell += unzigzag(getVarint());
+                        moves = add(moves, i, cell);
+                    }
+                    int ignitionCount = (int) getVarint();
+                    cell = lastIgnition;
+                    for (int i = 0; i < ignitionCount; i++) {
+                        cell += unzigzag(getVarint());
+                        ignitions = add(ignitions, i, cell);
+                    }
+
+                    this.moveCount = moveCount;
+                    this.ignitionCount = ignitionCount;
+                    if (moveCount > 0) {
+                        position = moves[moveCount - 1];
+                    }
+                    for (int i = 0; i < ignitionCount; i++) {
+                        ship.ignite(ignitions[i]);
+                    }
+                    if (ignitionCount > 0) {
+                        lastIgnition = ignitions[ignitionCount - 1];
+                    }
+                    tick++;
+                    return true;
+                } else {
+                    if (tag == ReplayWriter.END) {
+                        outcome = SimulationResult.Outcome.values()[(int) getVarint()];
+                        resultTicks = (int) getVarint();
+                    }
+                    log.position(start); //stay on the END record
+                    return false;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            log.position(start); //the last record of a log cut short is incomplete and is not replayed
+        }
+        return false;
+    }
+
+    public ShipGrid getShip() {
+        return ship;
+    }
+    public int getTick() {
+        return tick;
+    }
+    public int getPosition() {
+        return position;
+    }
+    public int getButtonCell() {
+        return buttonCell;
+    }
+    public double getQ() {
+        return q;
+    }
+    public int getMoveCount() { //cells the bot moved to in the last replayed tick
+        return moveCount;
+    }
+    public int getMove(int i) {
+        return moves[i];
+    }
+    public int getIgnitedCount() { //cells that caught fire in the last replayed tick
+        return ignitionCount;
+    }
+    public int getIgnited(int i) {
+        return ignitions[i];
+    }
+    public SimulationResult.Outcome getOutcome() { //known once the replay reached the end of the log
+        return outcome;
+    }
+    public int getResultTicks() {
+        return resultTicks;
+    }
+
+    public void print() { //the ship at the current tick, with ShipGenerator.printship's codes: 0 = open, 1 = blocked, 2 = bot, 3 = button, 4 = fire
+        for (int i = 0; i < ship.getRows(); i++) {
+            StringBuilder line = new StringBuilder();
+            for (int j = 0; j < ship.getCols(); j++) {
+                int cell = ship.index(i, j);
+                int code = ship.isBlocked(cell) ? 1 : cell == position ? 2 : ship.isFire(cell) ? 4 : cell == buttonCell ? 3 : 0;
+                line.append(code).append("  ");
+            }
+            System.out.println(line);
+        }
+    }
+
+    private long getVarint() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = log.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int unzigzag(long encoded) {
+        int value = (int) encoded;
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int[] add(int[] list, int size, int value) {
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size * 2);
+        }
+        list[size] = value;
+        return list;
+    }
+
+    public static void main(String[] args) throws IOException {
+        //usage: java ReplayReader <log> [tick], prints the ship at 'tick' (default: the end of the log) and the outcome
+        ReplayReader reader = new ReplayReader(Paths.get(args[0]));
+        reader.seek(args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE);
+        reader.print();
+        System.out.printf("tick %d, bot at (%d, %d), %d cells on fire%s%n", reader.getTick(), reader.getShip().row(reader.getPosition()),
+                reader.getShip().col(reader.getPosition()), reader.getShip().countFire(),
+                reader.getOutcome() == null ? "" : ", outcome " + reader.getOutcome() + " after " + reader.getResultTicks() + " ticks");
+    }
+}
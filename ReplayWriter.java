@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+//records one simulation into a compact replay log (read back by ReplayReader), see ShipBots.setReplayFile.
+//the log is written through one reused ByteBuffer that is flushed to a FileChannel whenever it runs low, so recording costs a few
+//varint stores per move and ignition and nothing is allocated per tick. A simulation that ends without finish (an exception) closes the
+//writer instead, which leaves a log cut short
+public class ReplayWriter implements AutoCloseable {
+    static final int MAGIC = 0x52504C59; //"RPLY"
+    static final int VERSION = 1;
+    static final int DEFAULT_KEYFRAME_INTERVAL = 64; //ticks between two keyframes
+
+    //header: magic, version, rows, cols, button row/col, keyframe interval (7 ints), q (a double), then the open plane (ShipGrid.writeOpenPlane).
+    //after the header a stream of records, each starting with its tag byte:
+    // KEYFRAME tick, bot cell, previous ignition, every fire plane word (the state after 'tick' ticks, every keyframe interval ticks and at tick 0)
+    // TICK     move count, moves, ignition count, ignitions (one tick: the cells the bot moved to and the cells that caught fire)
+    // END      outcome ordinal, ticks of the SimulationResult
+    // INDEX    keyframe count, then (tick, file offset) of every keyframe
+    //every number is an unsigned LEB128 varint, moves and ignitions are zigzag encoded differences to the previous move / ignition
+    //and the index offsets differences to the previous offset. The file ends with the offset of the INDEX record (a long) and the magic,
+    //a log cut short (no INDEX) can still be read up to its last complete record
+    static final int KEYFRAME = 1, TICK = 2, END = 3, INDEX = 4;
+    static final int HEADER_INTS = 7;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int MAX_VARINT_BYTES = 10;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final int keyframeInterval;
+    private final int words; //fire plane words of a keyframe
+    private long flushed; //bytes already handed to the channel, the file offset of buffer position 0
+    private int tick; //number of ticks recorded so far
+    private int lastMove, lastIgnition; //previous values of the two difference encoded streams
+    private int[] moves = new int[16], ignitions = new int[16]; //the current tick's moves and ignitions, written once the tick ends
+    private int moveCount, ignitionCount;
+    private int[] keyframeTicks = new int[16];
+    private long[] keyframeOffsets = new long[16];
+    private int keyframes;
+
+    //starts a log of the simulation on 'ship' (its current fire becomes keyframe 0), with the bot on 'position'
+    public ReplayWriter(Path file, ShipGrid ship, int position, int buttonCell, double q) throws IOException {
+        this(file, ship, position, buttonCell, q, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public ReplayWriter(Path file, ShipGrid ship, int position, int buttonCell, double q, int keyframeInterval) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.keyframeInterval = keyframeInterval;
+        this.words = ship.openPlaneWords();
+        try {
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(ship.getRows()).putInt(ship.getCols())
+                    .putInt(ship.row(buttonCell)).putInt(ship.col(buttonCell)).putInt(keyframeInterval).putDouble(q);
+            for (int word = 0; word < words; word++) {
+                ensure(8);
+                buffer.putLong(ship.openBits(word << 6));
+            }
+            lastMove = position;
+            keyframe(ship, position);
+        } catch (IOException | RuntimeException e) { //nobody gets a writer to close, so the channel is closed here
+            channel.close();
+            throw e;
+        }
+    }
+
+    public void move(int cell) { //the bot moved to 'cell'
+        moves = add(moves, moveCount++, cell);
+    }
+
+    public void ignite(int cell) { //'cell' caught fire
+        ignitions = add(ignitions, ignitionCount++, cell);
+    }
+
+    //closes the current tick, 'ship' and 'position' are the state after it and become a keyframe every keyframe interval ticks
+    public void endTick(ShipGrid ship, int position) throws IOException {
+        writeTick();
+        if (tick % keyframeInterval == 0) {
+            keyframe(ship, position);
+        }
+    }
+
+    //closes the log: the moves and ignitions since the last endTick become a last tick, followed by the outcome and the keyframe index
+    public void finish(SimulationResult.Outcome outcome, int ticks) throws IOException {
+        if (moveCount > 0 || ignitionCount > 0) {
+            writeTick();
+        }
+        ensure(1 + 2 * MAX_VARINT_BYTES);
+        buffer.put((byte) END);
+        putVarint(outcome.ordinal());
+        putVarint(ticks);
+
+        long indexOffset = flushed + buffer.position();
+        ensure(1 + MAX_VARINT_BYTES);
+        buffer.put((byte) INDEX);
+        putVarint(keyframes);
+        long previous = 0;
+        for (int i = 0; i < keyframes; i++) {
+            ensure(2 * MAX_VARINT_BYTES);
+            putVarint(keyframeTicks[i]);
+            putVarint(keyframeOffsets[i] - previous);
+            previous = keyframeOffsets[i];
+        }
+        ensure(12);
+        buffer.putLong(indexOffset).putInt(MAGIC);
+        close();
+    }
+
+    //writes out the records already complete and closes the file, the moves and ignitions of an unfinished tick are dropped.
+    //after finish, or a second time, it does nothing
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeTick() throws IOException {
+        ensure(1 + MAX_VARINT_BYTES);
+        buffer.put((byte) TICK);
+        putVarint(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            ensure(MAX_VARINT_BYTES);
+            putVarint(zigzag(moves[i] - lastMove));
+            lastMove = moves[i];
+        }
+        ensure(MAX_VARINT_BYTES);
+        putVarint(ignitionCount);
+        for (int i = 0; i < ignitionCount; i++) {
+            ensure(MAX_VARINT_BYTES);
+            putVarint(zigzag(ignitions[i] - lastIgnition));
+            lastIgnition = ignitions[i];
+        }
+        moveCount = 0;
+        ignitionCount = 0;
+        tick++;
+    }
+
+    private void keyframe(ShipGrid ship, int position) throws IOException {
+        if (keyframes == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+        }
+        keyframeTicks[keyframes] = tick;
+        keyframeOffsets[keyframes++] = flushed + buffer.position();
+        ensure(1 + 3 * MAX_VARINT_BYTES);
+        buffer.put((byte) KEYFRAME);
+        putVarint(tick);
+        putVarint(position); //the bot's cell is always the last move, so the move differences can be decoded from here on
+        putVarint(lastIgnition);
+        for (int word = 0; word < words; word++) { //mostly 0 (one byte) away from the fire
+            ensure(MAX_VARINT_BYTES);
+            putVarint(ship.fireBits(word << 6));
+        }
+    }
+
+    private void ensure(int bytes) throws IOException { //makes room for 'bytes' more bytes, flushing the buffer when it is too full
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushed += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void putVarint(long value) { //unsigned LEB128, 7 bits per byte with the high bit set on every byte but the last
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long zigzag(int delta) { //maps small negative and positive differences to small unsigned numbers: 0, -1, 1, -2 ... -> 0, 1, 2, 3 ...
+        return ((delta << 1) ^ (delta >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int[] add(int[] list, int size, int value) {
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size * 2);
+        }
+        list[size] = value;
+        return list;
+    }
+}
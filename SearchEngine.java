@@ -0,0 +1,150 @@
+import java.util.*;
+
+public class SearchEngine { //best-first search over the ship grid shared by all path planners, it keeps per cell parent/cost records and a primitive heap instead of copying whole paths per node
+    //fields of a cell's record in 'cells': STAMP is epoch once the search reached the cell and -epoch once it expanded (closed) it, PARENT,
+    //COST and STEPS are only valid when STAMP is one of the two, so nothing has to be cleared between searches
+    private static final int STAMP = 0, PARENT = 1, COST = 2, STEPS = 3;
+
+    private final ShipGrid grid; //ship being searched, cells are the padded indices of ShipGrid
+    private final CellTable cells; //PARENT = the cell we reached the cell from, COST = best known path cost from the start (its number of steps unless a StepCost is used), STEPS = number of steps on that path
+    private int epoch; //incremented once per search
+
+    private final IntHeap heap = new IntHeap(); //cells ordered by cost + heuristic, stale entries are skipped when popped
+
+    private int expansions; //number of cells expanded by the last search
+    private int budget = Integer.MAX_VALUE; //expansions the next search may use, see setBudget
+    private boolean partial; //true if the last search ran out of its budget
+    private LandmarkIndex landmarks; //ALT heuristic of the running search, null for the Manhattan distance alone
+
+    public interface CellFilter { //decides whether the search may step onto an open cell
+        boolean canEnter(int cell);
+    }
+
+    public interface StepCost { //cost of stepping onto 'cell' as the 'step'-th move of the path, must be at least 1 so the Manhattan heuristic stays admissible
+        int cost(int cell, int step);
+    }
+
+    public SearchEngine(ShipGrid grid) {
+        this.grid = grid;
+        this.cells = CellTable.create(grid.size(), 4); //paged on a huge ship, which then only pays for the searched region
+    }
+
+    public int getExpansions() {
+        return expansions;
+    }
+
+    //anytime search: the next search (only that one) stops after expanding 'budget' cells and returns the path to the expanded cell
+    //closest to the goal by its heuristic (the Manhattan distance for uniform cost search), which may be the start itself (an empty path),
+    //with isPartial() set. searchNearest has no goal cell to get closer to and ignores the budget
+    public void setBudget(int budget) {
+        this.budget = budget;
+    }
+    public boolean isPartial() { //true if the last search ran out of its budget, its path then does not end at the goal
+        return partial;
+    }
+
+    //finds a shortest path from startCell to goalCell that only steps onto open cells accepted by 'filter' (the start cell itself is never checked)
+    //with useHeuristic the search is A* with the Manhattan distance, otherwise it is uniform cost search
+    //returns the path cells without the start cell and with the goal cell, or null if the goal cannot be reached
+    public int[] search(int startCell, int goalCell, CellFilter filter, boolean useHeuristic) {
+        return search(startCell, goalCell, filter, null, useHeuristic);
+    }
+
+    //same as above, but every step costs stepCost.cost(cell, step) instead of 1 (a null stepCost means 1 per step)
+    public int[] search(int startCell, int goalCell, CellFilter filter, StepCost stepCost, boolean useHeuristic) {
+        return search(startCell, goalCell, null, filter, stepCost, useHeuristic, null);
+    }
+
+    //A* whose heuristic is the larger of the Manhattan distance and the ALT bound of 'landmarks' (the index of this grid's layout),
+    //finds paths exactly as short as the other searches while expanding far fewer cells on maze-like layouts. A null stepCost means 1 per step
+    public int[] search(int startCell, int goalCell, CellFilter filter, StepCost stepCost, LandmarkIndex landmarks) {
+        return search(startCell, goalCell, null, filter, stepCost, true, landmarks);
+    }
+
+    //uniform cost search that stops at the nearest cell accepted by 'isGoal' (the start cell itself is never a goal), used by MultiAgentSimulation
+    //to find the closest of several buttons in one search. Returns the path to that cell, or null if no goal can be reached
+    public int[] searchNearest(int startCell, CellFilter isGoal, CellFilter filter) {
+        return search(startCell, -1, isGoal, filter, null, false, null);
+    }
+
+    private int[] search(int startCell, int goalCell, CellFilter isGoal, CellFilter filter, StepCost stepCost, boolean useHeuristic, LandmarkIndex landmarks) {
+        this.landmarks = landmarks;
+        int limit = goalCell >= 0 ? budget : Integer.MAX_VALUE;
+        budget = Integer.MAX_VALUE;
+        partial = false;
+        int closest = startCell, closestDistance = Integer.MAX_VALUE; //expanded cell closest to the goal, only tracked under a budget
+        epoch = cells.nextEpoch(epoch);
+        heap.clear();
+        expansions = 0;
+
+        cells.set(startCell, STAMP, epoch);
+        cells.set(startCell, PARENT, -1);
+        cells.set(startCell, COST, 0);
+        cells.set(startCell, STEPS, 0);
+        heap.push(startCell, useHeuristic ? heuristic(startCell, goalCell) : 0);
+
+        while (!heap.isEmpty()) {
+            int cell = heap.pop();
+            if (cells.get(cell, STAMP) == -epoch) { //stale heap entry, the cell was already expanded through a cheaper path
+                continue;
+            }
+            cells.set(cell, STAMP, -epoch);
+
+            if (cell == goalCell || (isGoal != null && cell != startCell && isGoal.canEnter(cell))) {
+                return rebuildPath(cell);
+            }
+            if (limit != Integer.MAX_VALUE) {
+                int distance = heuristic(cell, goalCell);
+                if (distance < closestDistance) {
+                    closest = cell;
+                    closestDistance = distance;
+                }
+                if (expansions == limit) {
+                    partial = true;
+                    return rebuildPath(closest);
+                }
+            }
+            expansions++;
+
+            //same neighbor order as the bots use: up, down, left, right, only open neighbors are looked at
+            int cellCost = cells.get(cell, COST), nextSteps = cells.get(cell, STEPS) + 1;
+            for (int mask = grid.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+                int neighbor = grid.neighbor(cell, Integer.numberOfTrailingZeros(mask));
+                int nextCost = cellCost + (stepCost == null ? 1 : stepCost.cost(neighbor, nextSteps));
+                relax(cell, neighbor, nextCost, nextSteps, goalCell, filter, useHeuristic);
+            }
+        }
+
+        return null;
+    }
+
+    private void relax(int from, int cell, int nextCost, int nextSteps, int goalCell, CellFilter filter, boolean useHeuristic) {
+        int stamp = cells.get(cell, STAMP);
+        if (stamp == -epoch || (stamp == epoch && cells.get(cell, COST) <= nextCost)) {
+            return; //already expanded or already reached at least as cheaply
+        }
+        if (!filter.canEnter(cell)) {
+            return;
+        }
+        cells.set(cell, STAMP, epoch);
+        cells.set(cell, PARENT, from);
+        cells.set(cell, COST, nextCost);
+        cells.set(cell, STEPS, nextSteps);
+        heap.push(cell, useHeuristic ? nextCost + heuristic(cell, goalCell) : nextCost);
+    }
+
+    private int[] rebuildPath(int goalCell) { //walks the parent pointers back from the goal, only done once per search
+        int[] path = new int[cells.get(goalCell, STEPS)];
+        int cell = goalCell;
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = cell;
+            cell = cells.get(cell, PARENT);
+        }
+        return path;
+    }
+
+    private int heuristic(int cell, int goalCell) { //both bounds are consistent, and so is their maximum
+        int manhattan = grid.manhattan(cell, goalCell);
+        return landmarks == null ? manhattan : Math.max(manhattan, landmarks.lowerBound(cell, goalCell));
+    }
+}
@@ -1,488 +1,562 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class ShipBots {
+    public enum PlannerMode { //how Bots 2-4 plan their path to the button on every tick
+        FULL_SEARCH, //a fresh search from scratch on the shared SearchEngine
+        INCREMENTAL, //D* Lite (IncrementalPlanner), keeps its search state across ticks and only repairs what the newly visited/burning cells touched
+        BIDIRECTIONAL, //a fresh bidirectional A* (BidirectionalSearch) from the bot and from the button
+        JUMP_POINT, //a fresh jump point search (JumpPointSearch), which skips over straight corridors instead of expanding them cell by cell
+        LANDMARK, //a fresh A* guided by the layout's LandmarkIndex (ALT) as well as the Manhattan distance, Bot Five's risk planner uses it too
+        CORRIDOR //A* on the layout's CorridorGraph (CorridorPlanner), which crosses a corridor in one step and only updates the corridors a changed cell lies in
+    }
+
     ShipGenerator shipGenerator; //shipGenerator object is an instance of our ShipGenerator class
-    private int[][] moves = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}}; //this defines up, right, left, down movements
-    private int[][] ship; //our generated ship we will run the simulations on
-    private int[] botPosition, buttonPosition, firePosition; //initial positions of the bot, button, fire
+    private ShipGrid ship; //our generated ship we will run the simulations on, cells are addressed by their padded ShipGrid index
+    private int botPosition, buttonPosition, firePosition; //initial cells of the bot, button, fire
+    private int position; //cell of the bot in the running simulation, every simulation starts at botPosition
     private int rows, cols; //stores the dimensions of our generated ship
-    private final int maxIterations = 20000; //maxIterations is a constant used to prevent some methods for looping continously and running out of heap space and memory
+    static final int MAX_ITERATIONS = 20000; //also the number of ticks a CoupledFireSweep has to cover
+    private final int maxIterations = MAX_ITERATIONS; //maxIterations is a constant used to prevent some methods for looping continously and running out of heap space and memory
+    static final int RISK_MARGIN = 3; //Bot Five treats a cell as risky when the fire is expected there less than RISK_MARGIN ticks after the bot
+    private static final int RISK_WEIGHT = 4; //extra cost per tick of missing safety margin on a risky cell
     private double q; //'q' parameter between 0 and 1 that we will pass in
-    private Queue<int[]> firePositionQueue; //Queue to store all the coordinates of the positions of the fire that it will spread to
+    private RandomStream random; //random number stream of the fire spread, seeded per trial so a run can be reproduced
+    private boolean verbose = true; //when false, the simulations only return their outcome instead of printing it
+    private boolean orthogonalFireAvoidance = false; //when true, the fire avoiding planners only avoid cells with a burning up/down/left/right neighbor instead of all 8 neighbors
+    private final SimulationContext context; //owns the engines below, a per-thread context lets back to back trials reuse them
+    private FireEngine fireEngine; //spreads the fire, keeping only the burning cells on the fire's boundary
+    private SearchEngine searchEngine; //shared search state (parent pointers, closed set, heap) reused by every path planning call
+    private PlannerMode plannerMode = PlannerMode.FULL_SEARCH; //planner used by Bots 2-4
+    private LandmarkIndex landmarks; //the layout's landmarks in LANDMARK mode, otherwise null
+    private Planner plainPlanner, fireAvoidingPlanner, aStarPlanner, riskPlanner; //the built in planners, see buildPlanners
+    private final List<Planner> planners = new ArrayList<>(); //every planner of this simulation, each wrapped in a MeteredPlanner
+    private boolean notifyPlanners; //true when a planner wants to hear about every changed cell
+    private final IntQueue queue = new IntQueue(); //scratch queue of the policies, reused by every simulation
+    private FireArrivalField fireArrivalField; //expected fire arrival time of every cell, recomputed once per tick by the risk planner
+    private int incrementalSlots; //context slots handed out to incremental and corridor planners by buildPlanners
+    private long simulationStart, planningNanos, spreadNanos, expansions; //metrics of the running simulation, see SimulationResult
+    private int replans, partialPlans;
+    private PlanningBudget budget; //anytime planning budget of the planners below, null (the default) plans every path to completion
+    private Path replayFile; //when not null, every simulation is recorded into this file (see ReplayWriter), replacing the previous recording
+    private ReplayWriter replay; //recorder of the running simulation, or null
 
     //ShipBots constructor that takes in an instance of the ShipGenerator class and a q value
     public ShipBots(ShipGenerator shipGenerator, double q) {
+        this(shipGenerator, q, RandomStream.unseeded());
+    }
+
+    //seeded constructor, the fire spread of two ShipBots built with the same layout and seed will be identical
+    public ShipBots(ShipGenerator shipGenerator, double q, long seed) {
+        this(shipGenerator, q, RandomStream.of(seed));
+    }
+
+    //coupled sweep constructor, the fire replays 'schedule' (computed by CoupledFireSweep for this layout and q) instead of drawing random numbers
+    public ShipBots(ShipGenerator shipGenerator, double q, FireSchedule schedule) {
+        this(privateContext(shipGenerator), shipGenerator, q, null, schedule);
+    }
+
+    private ShipBots(ShipGenerator shipGenerator, double q, RandomStream random) {
+        this(privateContext(shipGenerator), shipGenerator, q, random, null);
+    }
+
+    private static SimulationContext privateContext(ShipGenerator shipGenerator) { //a context of its own, simulating on the layout's grid in place
+        SimulationContext context = new SimulationContext();
+        context.use(shipGenerator.getShip());
+        return context;
+    }
+
+    //used by SimulationContext.newShipBots, 'context' must already be bound to the layout's grid
+    ShipBots(SimulationContext context, ShipGenerator shipGenerator, double q, RandomStream random, FireSchedule schedule) {
         //retrieves all necessary info, including an instance of the ShipGenerator class, the ship, dimensions, and initial positions
         this.shipGenerator = shipGenerator;
         this.ship = shipGenerator.getShip();
         this.rows = shipGenerator.getRows();
         this.cols = shipGenerator.getCols();
-        this.botPosition = shipGenerator.getKeyPosition(ship, 2); 
-        this.buttonPosition = shipGenerator.getKeyPosition(ship, 3);
-        this.firePosition = shipGenerator.getKeyPosition(ship, 4);
+        this.botPosition = shipGenerator.getBotCell();
+        this.buttonPosition = shipGenerator.getButtonCell();
+        this.firePosition = shipGenerator.getFireCell();
         this.q = q;
-        this.firePositionQueue = new LinkedList<>();
-        firePositionQueue.add(firePosition); //add the initial fire position to the queue
+        this.random = random;
+        this.context = context;
+        this.searchEngine = context.searchEngine();
+        this.fireEngine = context.fireEngine(q, random, schedule);
+        fireEngine.ignite(firePosition); //the initial fire is the fire engine's first burning cell
+        buildPlanners();
     }
 
-    private static class Path { //private class 'Path' within ShipBots class to help represent our path for Uniform Cost Search (used in Bot 2 and Bot 3)
+    public void setVerbose(boolean verbose) { //turn the per-trial success/failure println on or off
+        this.verbose = verbose;
+    }
 
+    //records the following simulations into 'file' (each one replaces the last), null stops recording. Read them back with ReplayReader,
+    //a trial built from the same layout and fire seed (or schedule) replays exactly, so a failed trial can be rerun with a recording
+    public void setReplayFile(Path file) {
+        this.replayFile = file;
+    }
+
+    public void setOrthogonalFireAvoidance(boolean orthogonalFireAvoidance) { //choose between the 4-neighborhood and the (default) 8-neighborhood fire adjacency check
+        this.orthogonalFireAvoidance = orthogonalFireAvoidance;
+    }
+
+    //bounds the cells the planners may expand per tick, null lifts the bound. FULL_SEARCH and LANDMARK paths and Bot Five's risk planner
+    //keep to it, the other planner modes keep search state of their own between plans and always plan to completion
+    public void setPlanningBudget(PlanningBudget budget) {
+        this.budget = budget;
+    }
 
-        private List<int[]> path; //list of array coordinates to represent our path
-        private int cost;   //represents the cost associated with each path movement
-        private int[] position; //represents the current position in the path
-    
-        public Path(List<int[]> path, int cost, int[] position) {
-            //the three attributes are passed in the 'Path' constructor
-            this.path = path;
-            this.cost = cost;
-            this.position = position;
+    public void setPlannerMode(PlannerMode plannerMode) { //drops any planner added through addPlanner
+        this.plannerMode = plannerMode;
+        buildPlanners();
+    }
+
+    public FireEngine getFireEngine() {
+        return fireEngine;
+    }
+
+    private void report(String message) { //prints a simulation outcome unless verbose output was turned off
+        if (verbose) {
+            System.out.println(message);
         }
-    
-        public List<int[]> getPath() { //getter method to retrieve the path list
-            return path;
+    }
+
+    private boolean isAdjacentToFire(int cell) { //this method helps determine whether the passed in 'cell' is adjacent to a fire cell, a single lookup into the fire engine's danger grid
+        return orthogonalFireAvoidance ? fireEngine.isOrthogonallyAdjacentToFire(cell) : fireEngine.isAdjacentToFire(cell);
+    }
+
+    //the accessors below are what a BotPolicy sees of the running simulation
+
+    public ShipGrid getShip() {
+        return ship;
+    }
+    public int getPosition() { //current cell of the bot
+        return position;
+    }
+    public void moveTo(int cell) {
+        position = cell;
+        if (replay != null) {
+            replay.move(cell);
         }
-    
-        public int getCost() { //getter method to retrieve the cost
-            return cost;
+    }
+    public int getButtonCell() {
+        return buttonPosition;
+    }
+    public double getQ() {
+        return q;
+    }
+    public IntQueue getQueue() { //scratch queue of cells the bot will move to, cleared at the start of every simulation
+        return queue;
+    }
+    public Planner getPlainPlanner() { //avoids visited cells, uniform cost search in FULL_SEARCH mode
+        return plainPlanner;
+    }
+    public Planner getFireAvoidingPlanner() { //also avoids cells next to the fire, uniform cost search in FULL_SEARCH mode
+        return fireAvoidingPlanner;
+    }
+    public Planner getAStarPlanner() { //same cells as the fire avoiding planner, A star in FULL_SEARCH mode
+        return aStarPlanner;
+    }
+    public Planner getRiskPlanner() { //may step onto any cell that is not burning, but pays extra for cells the fire is expected to reach around the time the bot does
+        return riskPlanner;
+    }
+
+    //registers a planner a custom BotPolicy brings along, so it is reset with every simulation, told about changed cells and metered like the built in ones.
+    //returns the planner the policy should call
+    public Planner addPlanner(Planner planner) {
+        MeteredPlanner metered = new MeteredPlanner(planner);
+        planners.add(metered);
+        notifyPlanners |= planner.wantsCellChanges();
+        return metered;
+    }
+
+    public void markVisited(int cell) { //marks 'cell' as visited by the bot, which makes it impassable for the planners
+        ship.markVisited(cell);
+        if (notifyPlanners) {
+            cellChanged(cell);
         }
-    
-        public int[] getPosition() { //getter method to retrieve the current position
-            return position;
+    }
+
+    private void cellChanged(int cell) { //tells the planners that the passability of 'cell' may have changed
+        for (int i = 0; i < planners.size(); i++) {
+            planners.get(i).cellChanged(cell);
         }
-    }   
+    }
 
-    private static class PathComparator implements Comparator<Path> { //the Comparator interface is implemeted so we can objects (paths) by their costs in the priority queue
-        @Override
-        public int compare(Path path1, Path path2) { //method compares two 'Path' objects based on their individual 'cost' values
-            return Integer.compare(path1.getCost(), path2.getCost()); //this means that 'Path' objects added to a priority queue are ordered on ascending order (lower the cost = more in front in the priority queue)
-        } 
+    private void buildPlanners() { //(re)creates the built in planners for the current planner mode
+        planners.clear();
+        notifyPlanners = false;
+        incrementalSlots = 0;
+        landmarks = plannerMode == PlannerMode.LANDMARK ? shipGenerator.getLandmarks() : null;
+        plainPlanner = addPlanner(modePlanner(cell -> !ship.isVisited(cell), false));
+        fireAvoidingPlanner = addPlanner(modePlanner(cell -> !ship.isVisited(cell) && !isAdjacentToFire(cell), false));
+        aStarPlanner = addPlanner(modePlanner(cell -> !ship.isVisited(cell) && !isAdjacentToFire(cell), true)); //D* Lite is already guided by the Manhattan heuristic
+        riskPlanner = addPlanner(new RiskPlanner());
     }
 
-    private List<int[]> getAllNeighbors(int[] position) { //returns a list of neighboring cell positions/coordinates around the passed in position
-        List<int[]> neighbors = new ArrayList<>(); //'neighbors' will store all neighboring positions
+    private Planner modePlanner(SearchEngine.CellFilter filter, boolean useHeuristic) {
+        //BIDIRECTIONAL, JUMP_POINT and LANDMARK are always heuristic guided, they find paths exactly as short as the uniform cost search but not necessarily the same ones
+        //CORRIDOR is always heuristic guided as well
+        if (plannerMode == PlannerMode.INCREMENTAL) {
+            return new IncrementalSearchPlanner(filter, incrementalSlots++);
+        }
+        return plannerMode == PlannerMode.CORRIDOR ? new CorridorSearchPlanner(filter, incrementalSlots++) : new SearchPlanner(filter, useHeuristic);
+    }
 
-        for (int[] move : moves) { //loop through the neighbors (up/right/left/down)
-            int currRow = position[0] + move[0]; //obtain row coordinate of curr neighbor
-            int curCol = position[1] + move[1]; //obtain col coordinate of curr neighbor
+    private class SearchPlanner implements Planner { //one search from scratch per plan, on the shared engine of the current planner mode
+        private final SearchEngine.CellFilter filter;
+        private final boolean useHeuristic;
+        private int expansions;
+        private boolean partial;
 
-            if (shipGenerator.inShip(currRow, curCol)) { //if this neighbor is in the ship, add it to our 'neighbors' list
-                neighbors.add(new int[]{currRow, curCol});
+        SearchPlanner(SearchEngine.CellFilter filter, boolean useHeuristic) {
+            this.filter = filter;
+            this.useHeuristic = useHeuristic;
+        }
+
+        public int[] plan(int start, int goal) {
+            int[] path;
+            partial = false;
+            switch (plannerMode) {
+                case BIDIRECTIONAL:
+                    BidirectionalSearch bidirectionalSearch = context.bidirectionalSearch();
+                    path = bidirectionalSearch.search(start, goal, filter);
+                    expansions = bidirectionalSearch.getExpansions();
+                    return path;
+                case JUMP_POINT:
+                    JumpPointSearch jumpPointSearch = context.jumpPointSearch();
+                    path = jumpPointSearch.search(start, goal, filter);
+                    expansions = jumpPointSearch.getExpansions();
+                    return path;
+                case LANDMARK:
+                    searchEngine.setBudget(planBudget());
+                    path = searchEngine.search(start, goal, filter, null, landmarks);
+                    expansions = searchEngine.getExpansions();
+                    partial = searchEngine.isPartial();
+                    return path;
+                default:
+                    searchEngine.setBudget(planBudget());
+                    path = searchEngine.search(start, goal, filter, useHeuristic);
+                    expansions = searchEngine.getExpansions();
+                    partial = searchEngine.isPartial();
+                    return path;
             }
         }
 
-        return neighbors; //return the neighbors list
+        public int getExpansions() {
+            return expansions;
+        }
+
+        public boolean isPartial() { //only FULL_SEARCH and LANDMARK plans are budgeted
+            return partial;
+        }
+    }
+
+    private int planBudget() { //expansions the next plan may use
+        return budget == null ? Integer.MAX_VALUE : budget.nextPlan();
     }
 
-    private boolean isAdjacentToFire(int[] cell, Queue<int[]> firePositionQueue) { //this method helps determine whether the passed in 'cell' position is adjacent to a fire cell 
-        for (int[] fireCell : firePositionQueue) { //firePositionQueue holds all fire positions, loop through each position
+    private class IncrementalSearchPlanner implements Planner { //D* Lite towards the goal of its first plan, restarted on the first plan of every simulation
+        private final SearchEngine.CellFilter filter;
+        private final int slot; //which of the context's incremental planners this one uses
+        private IncrementalPlanner planner; //null until the first plan of the simulation
+        private int goal;
 
-            //if both the row coordinate and column coordinate of 'cell' is within 1 absolute unit in any direction (u/r/l/d) of a fireCell (a position we know is on fire), then it is adjacent to a fire cell
-            if (Math.abs(cell[0] - fireCell[0]) <= 1 && Math.abs(cell[1] - fireCell[1]) <= 1) { 
-                return true; //returns true if the position is adjacent to a fire cell
+        IncrementalSearchPlanner(SearchEngine.CellFilter filter, int slot) {
+            this.filter = filter;
+            this.slot = slot;
+        }
+
+        public int[] plan(int start, int goal) {
+            if (planner == null || goal != this.goal) {
+                planner = context.incrementalPlanner(slot, goal, filter);
+                this.goal = goal;
             }
+            return planner.plan(start);
         }
-        return false; //return false if no positions are found to be adjacent to a fire cell
-    }
 
-    private int getK(int row, int col) { //method returns the number of cells neighboring the (row,col) position that are on fire
-        int count = 0;
+        public int getExpansions() {
+            return planner == null ? 0 : planner.getExpansions();
+        }
 
-        for (int[] move : moves) { //loop through all moves (up, left, right, down)
-            int currRow = row + move[0]; //obtain current row coordinate of neighbor
-            int curCol = col + move[1]; //obtain current column coordinate of neighbor
+        public void cellChanged(int cell) {
+            if (planner != null) {
+                planner.cellChanged(cell);
+            }
+        }
 
+        public boolean wantsCellChanges() {
+            return true;
+        }
 
-            //checks if the coordinates are 1. In the ship 2. Equal to 4 (a fire cell) 3. Not equal to 1 (A blocked cell)
-            if (shipGenerator.inShip(currRow, curCol) && ship[currRow][curCol] == 4 && ship[currRow][curCol] != 1) {
-                count++; //add to count if conditions are met
+        public void reset() {
+            planner = null;
+        }
+    }
+
+    private class CorridorSearchPlanner implements Planner { //A* on the layout's corridor graph, reads the filter for the whole graph on the first plan of every simulation
+        private final SearchEngine.CellFilter filter;
+        private final int slot; //which of the context's corridor planners this one uses
+        private CorridorPlanner planner; //null until the first plan of the simulation
+
+        CorridorSearchPlanner(SearchEngine.CellFilter filter, int slot) {
+            this.filter = filter;
+            this.slot = slot;
+        }
+
+        public int[] plan(int start, int goal) {
+            if (planner == null) {
+                planner = context.corridorPlanner(slot, shipGenerator.getCorridors(), filter);
             }
+            return planner.plan(start, goal);
         }
 
-        return count; //return count (num of neighboring cells on fire)
-    }
-    
-    private boolean containsFireOrBlockedCells(List<int[]> path) { //method checks whether any positions in the 'path' list are fire cells are blocked cells 
-        for (int[] step : path) { //loop through each 'step' in the path
-            if (ship[step[0]][step[1]] == 1 || ship[step[0]][step[1]] == 4) { //checks if path contains fire/blocked cells
-                return true; //return true if it does
+        public int getExpansions() {
+            return planner == null ? 0 : planner.getExpansions();
+        }
+
+        public void cellChanged(int cell) {
+            if (planner != null) {
+                planner.cellChanged(cell);
             }
         }
-        return false; // return false if the path is 'clean' (containing no fire/blocked cells)
+
+        public boolean wantsCellChanges() {
+            return true;
+        }
+
+        public void reset() {
+            planner = null;
+        }
     }
 
-    private List<int[]> planPathToButton(int[] start, int[] goal, boolean[][] visited) {//method plans a path from the start to goal position that avoids current fire cells
-        
-        //priority queue to prioritize paths with the lowest cost
-        PriorityQueue<Path> allPathsQueues = new PriorityQueue<>(new PathComparator());
-    
-        //initialize starting position with a cost of 0 and add it to the 'allPathsQueues'
-        Path initialPath = new Path(new ArrayList<>(), 0, start);
-        allPathsQueues.add(initialPath);
-        
+    private class RiskPlanner implements Planner { //recomputes the fire arrival field (one linear pass over the ship) and runs a risk weighted A star on it
+        private int expansions;
+        private boolean partial;
 
-        //while loop continues until either allPathsQueues is empty or iterations exceed our constant 'maxIterations'
-        //as mentioned before, maxIterations is set as 20,000 to prevent heap/memory issues
-        int iterations = 0;
-        while (!allPathsQueues.isEmpty() && iterations < maxIterations) {
-            Path currentPath = allPathsQueues.poll(); //retrieve the 'Path' with the lowest cost
-            int[] currentCell = currentPath.getPosition(); //set our currentCell equal to the current position in the 'currentPath'
-    
-            if (Arrays.equals(currentCell, goal)) { //if our currentCell is equal to the goal, this means a path to the goal has been found
-                return currentPath.getPath(); // return the path that leads to the goal
+        public int[] plan(int start, int goal) {
+            if (fireArrivalField == null) {
+                fireArrivalField = context.fireArrivalField();
             }
+            int planBudget = planBudget();
+            //a search of planBudget expansions takes at most planBudget steps, the field is exact out to where the fire could matter by then
+            fireArrivalField.compute(fireEngine, q, planBudget == Integer.MAX_VALUE ? Integer.MAX_VALUE
+                    : (int) Math.min(Integer.MAX_VALUE - 1, Math.ceil(((double) planBudget + RISK_MARGIN) * q) + 1));
+            //every step costs at least 1, so the landmarks' bound on the number of steps also bounds the cost
+            searchEngine.setBudget(planBudget);
+            int[] path = landmarks == null ? searchEngine.search(start, goal, cell -> !ship.isFire(cell), this::riskCost, true)
+                    : searchEngine.search(start, goal, cell -> !ship.isFire(cell), this::riskCost, landmarks);
+            expansions = searchEngine.getExpansions();
+            partial = searchEngine.isPartial();
+            return path;
+        }
 
-            //if its not the goal, we explore the neighbors of 'currentCell'
-    
-            List<int[]> neighbors = getAllNeighbors(currentCell); //this retrieves the neighbors of 'currentCell' and stores it in the 'neighbors' list
-    
-            for (int[] neighbor : neighbors) { //loop through all the neighbors in the 'neighbors' list
-                if (!visited[neighbor[0]][neighbor[1]] && ship[neighbor[0]][neighbor[1]] != 1) { //check if the neighbor is unvisited and not a blocked/wall cell
-                    
-                    List<int[]> newPath = new ArrayList<>(currentPath.getPath()); //create a new path starting from the 'currentPath' position and onwards
-                    newPath.add(neighbor); // Add the neighbor of 'currentPath' to the new path 'newPath'
-                    int newCost = currentPath.getCost() + 1; //update the cost by 1 additional value
-    
-                    //Add the new path 'newPath' with the updated cost to the priority queue
-                    allPathsQueues.add(new Path(newPath, newCost, neighbor));
-                }
+        public boolean isPartial() { //a partial path still starts with a step towards the goal, which is all Bot Five takes of it
+            return partial;
+        }
+
+        private int riskCost(int cell, int step) { //cost of entering 'cell' as the bot's 'step'-th move, read from the fire arrival field
+            int slack = fireArrivalField.expectedArrival(cell) - step; //ticks between the bot passing the cell and the fire arriving there
+            if (slack >= RISK_MARGIN) {
+                return 1;
             }
-            iterations++; 
+            return 1 + RISK_WEIGHT * (RISK_MARGIN - Math.max(slack, 0));
+        }
+
+        public int getExpansions() {
+            return expansions;
         }
-    
-        return null; //return null if there was no valid path that could be found from the bot to the button (start to goal)
     }
 
-    private List<int[]> planPathToButtonWithFireAvoidance(int[] start, int[] goal, boolean[][] visited, Queue<int[]> firePositionQueue) { //method returns a path from bot to button (start to goal) that avoids cells adjacent to fire cells
+    private class MeteredPlanner implements Planner { //books every plan of the wrapped planner into the metrics of the running simulation
+        private final Planner planner;
 
-        /* THIS METHOD IS JUST LIKE THE 'planPathToButton' METHOD, HOWEVER THIS ALSO AVOIDS CELLS THAT ARE ADJACENT TO FIRE CELLS */
+        MeteredPlanner(Planner planner) {
+            this.planner = planner;
+        }
 
-        PriorityQueue<Path> allPathsQueues = new PriorityQueue<>(new PathComparator());
-    
-        Path initialPath = new Path(new ArrayList<>(), 0, start);
-        allPathsQueues.add(initialPath);
-    
-        int iterations = 0;
-        while (!allPathsQueues.isEmpty() && iterations < maxIterations) {
-            Path currentPath = allPathsQueues.poll();
-            int[] currentCell = currentPath.getPosition();
-    
-            if (Arrays.equals(currentCell, goal)) {
-                return currentPath.getPath(); 
+        public int[] plan(int start, int goal) {
+            long planStart = System.nanoTime();
+            int[] path = planner.plan(start, goal);
+            long nanos = System.nanoTime() - planStart;
+            replans++;
+            expansions += planner.getExpansions();
+            planningNanos += nanos;
+            if (planner.isPartial()) {
+                partialPlans++;
             }
-    
-            List<int[]> neighbors = getAllNeighbors(currentCell);
-    
-            for (int[] neighbor : neighbors) {
-                if (!visited[neighbor[0]][neighbor[1]] && ship[neighbor[0]][neighbor[1]] != 1) {
-                    List<int[]> newPath = new ArrayList<>(currentPath.getPath()); 
-                    newPath.add(neighbor); 
-                    int newCost = currentPath.getCost() + 1; 
-    
-                    if (!isAdjacentToFire(neighbor, firePositionQueue)) {
-                        allPathsQueues.add(new Path(newPath, newCost, neighbor));
-                    }
-                }
+            if (budget != null) {
+                budget.charge(planner.getExpansions(), nanos);
             }
-            iterations++;
+            return path;
+        }
+
+        public int getExpansions() {
+            return planner.getExpansions();
+        }
+        public boolean isPartial() {
+            return planner.isPartial();
+        }
+        public void cellChanged(int cell) {
+            planner.cellChanged(cell);
+        }
+        public boolean wantsCellChanges() {
+            return planner.wantsCellChanges();
+        }
+        public void reset() {
+            planner.reset();
         }
-    
-        return null;
     }
 
-    private int heuristic(int[] start, int[] goal) { //this will be the heuristic value used for the A star algorithm, which is the distance, or "Manhattan" distance from the start position to goal position
-        return Math.abs(start[0] - goal[0]) + Math.abs(start[1] - goal[1]);
+    //the three methods below plan with the built in planners, they and spreadFire are package-private so the JMH benchmarks (ShipFixtures) can time them on their own
+
+    int[] planPathToButton(int start, int goal) {//method plans a path from the start to goal cell using uniform cost search, only avoiding visited and blocked cells
+        return plainPlanner.plan(start, goal);
     }
 
-    private List<int[]> pathPlanAStar(int[] start, int[] goal, boolean[][] visited, Queue<int[]> fireQueue) {
-    
-          /* THIS METHOD IS JUST LIKE THE 'planPathToButton' and 'planPathToButtonWithFireAvoidance' METHOD, HOWEVER THE ONLY DIFFERENCE IS THE COST IS CALCULATED USING THE HEURISTIC DISTANCE VALUE INSTEAD OF JUST INCREMENTING IT BY +1*/
+    int[] planPathToButtonWithFireAvoidance(int start, int goal) { //method returns a path from bot to button (start to goal) that avoids cells adjacent to fire cells
+        return fireAvoidingPlanner.plan(start, goal);
+    }
 
-        PriorityQueue<Path> allPathsQueues = new PriorityQueue<>(new PathComparator());
-    
-  
-        Path initialPath = new Path(new ArrayList<>(), 0, start);
-        allPathsQueues.add(initialPath);
-    
-        int iterations = 0;
-        while (!allPathsQueues.isEmpty() && iterations < maxIterations) {
-            Path currentPath = allPathsQueues.poll();
-            int[] currentCell = currentPath.getPosition();
-    
-            if (Arrays.equals(currentCell, goal)) {
-                return currentPath.getPath(); //if the current path leads to the goal, just return it
-            }
-    
-            List<int[]> neighbors = getAllNeighbors(currentCell);
-            for (int[] neighbor : neighbors) {
-                if (!visited[neighbor[0]][neighbor[1]] && ship[neighbor[0]][neighbor[1]] != 1) {
-                    List<int[]> newPath = new ArrayList<>(currentPath.getPath());
-                    newPath.add(neighbor);
-                    int newCost = currentPath.getCost() + 1;
-    
-                    //calculate the heuristic (the current distance left to get to the goal)
-                    int heuristicCost = heuristic(neighbor, goal);
-                    
-                    //calculate the total 'cost' as the sum of the new cost plus the distance that the 'heuristic' function returns
-                    int cost = newCost + heuristicCost;
-    
-                    if (!isAdjacentToFire(neighbor, fireQueue)) {
-                        //add the new path with the right 'cost' value to the priority queue
-                        allPathsQueues.add(new Path(newPath, cost, neighbor));
-                    }
-                }
-            }
-            iterations++;
-        }
-    
-        return null; // Return null if there was no valid path to the button
+    int[] pathPlanAStar(int start, int goal) { //same as 'planPathToButtonWithFireAvoidance', but ordered by cost + Manhattan distance to the goal (A star)
+        return aStarPlanner.plan(start, goal);
     }
 
-    private void spreadFire(Queue<int[]> firePositionQueue) { //this method simulates the spreading of the fire, takes in the firePositionQueue (which currently stores the initial fire position)
-        
-        //only included this so that I could make sure that the K value for the first iteration was set to 1
-        boolean isFirstIteration = true; 
-
-        Queue<int[]> newfirePositionQueue = new LinkedList<>(); //create a new firePositionQueue to store the cells that are to be ignited in this current iteration
-    
-        //iterate through each cell in the firePositionQueue (each cell here should be on fire already)
-        for (int i = 0; i < firePositionQueue.size(); i++) {
-            int[] currentFire = firePositionQueue.poll(); //retrieve the the current fire cells position
-    
-            //iterate through the neighboring cells of the current fire cell
-            for (int[] move : moves) {
-                int currRow = currentFire[0] + move[0]; //retrieve the row coordinate
-                int curCol = currentFire[1] + move[1]; //retrieve the neighbor column coordinate
-    
-                if (shipGenerator.inShip(currRow, curCol)) { //check if this coordinate is within our ship bounds
-                    //check if the neighboring cell is not already on fire/blocked
-                    if (ship[currRow][curCol] != 4 && ship[currRow][curCol] != 1 ) {
-                        //Calculate 'K' value based on the number of neighboring cells that are on fire
-
-                        //this just makes sure that if we are in first iteration K = 1, otherwise we can call the 'getK' helper method to retrieve K
-                        int K = isFirstIteration ? 1 : getK(currRow, curCol); 
-    
-                        //calculate the probability of this neighbor cell catching fire
-                        double rand = Math.random();//generate a random number between 0 and 1
-
-                        //if the formula (1-(1-q)^K returns a number greater than the randomly generated number, we can say the cell is now on fire
-                        if (rand < (1 - Math.pow((1 - q), K))) { 
-                            //set the cell value equal to 4 to represent it being on fire and add it to the 'newfirePositionQueue'
-                            ship[currRow][curCol] = 4;
-                            newfirePositionQueue.add(new int[]{currRow, curCol});
-                        }
-                    }
-                }
+    void spreadFire() { //this method simulates the spreading of the fire by one step
+        long spreadStart = System.nanoTime();
+
+        //the fire engine only looks at the burning cells on the boundary of the fire and uses its precomputed 1-(1-q)^K table,
+        //it also keeps the danger grid that isAdjacentToFire reads up to date
+        fireEngine.step();
+        if (replay != null) {
+            for (int i = 0; i < fireEngine.getIgnitedCount(); i++) {
+                replay.ignite(fireEngine.getIgnited(i));
             }
-            isFirstIteration = false; //now the 'K' value will be retrieved from the 'getK' method
         }
-    
-        //add newly ignited cells that were added to 'newfirePositionQueue' to the 'firePositionQueue' for the next iteration
-        firePositionQueue.addAll(newfirePositionQueue);
-    }
 
-    public void botOneSimulation() { //method simulates BFS exploring of Bot One to find the shortest path to the button, the bot ignores the spread of the fire
-        
-        //create a 'botPositionQueue' and 'firePositionQueue' to store the bot and fire positions
-        Queue<int[]> botPositionQueue = new LinkedList<>(); 
-        Queue<int[]> firePositionQueue = new LinkedList<>();
-        //create 2D boolean array to track the visited positions of the bot (true = visited, and false = non-visited)
-        boolean[][] visited = new boolean[rows][cols];
-    
-        botPositionQueue.add(botPosition); //add bot's initial position to 'botPositionQueue'
-        visited[botPosition[0]][botPosition[1]] = true; //set the initial position 
-        firePositionQueue.add(firePosition); //add fire's initial position to the firePositionQueue
-
-        //continue iterating until there are no more positions for the bot to explore or if iterations exceed our constant maxIterations
-        int iterations = 0;
-        while (!botPositionQueue.isEmpty() && iterations < maxIterations) {
-            int[] currentBot = botPositionQueue.poll(); //retrieve the earliest cell explored by the bot in the queue
-    
-            //check if the current bot position equals the current button position and is not a fire cell, if so, simulation is successful
-            if (Arrays.equals(currentBot, buttonPosition) && ship[currentBot[0]][currentBot[1]] != 4) {
-                System.out.println("Success! The bot has reached the button and put out the fire in the ship!.");
-                return;
-            }
-    
-            List<int[]> botNeighbors = getAllNeighbors(currentBot); //retrieve all neighbor positions of the current bot position
-    
-            for (int[] botNeighbor : botNeighbors) { //loop through each of the neighbors of the current bot position
-                if (!visited[botNeighbor[0]][botNeighbor[1]] && ship[botNeighbor[0]][botNeighbor[1]] == 1) { 
-                    //if the neighbor is a wall or if it is already visited, we can continue onwards
-                    continue;
+        //a newly burning cell changes the fire adjacency of its whole 3x3 block
+        if (notifyPlanners) {
+            int stride = ship.getStride();
+            for (int i = 0; i < fireEngine.getIgnitedCount(); i++) {
+                int ignitedCell = fireEngine.getIgnited(i);
+                for (int above = ignitedCell - stride - 1; above <= ignitedCell + stride - 1; above += stride) {
+                    cellChanged(above);
+                    cellChanged(above + 1);
+                    cellChanged(above + 2);
                 }
-                botPositionQueue.add(botNeighbor); //add the neighbor position to the queue if it is not a wall or already visited
-                visited[botNeighbor[0]][botNeighbor[1]] = true; //set that position to true to represent it being a visited cell in 'visited'
-            }
-    
-            //call the spreadFire() method, passing in the firePositionQueue that stores the current fire positions, to simulate the spreading of the fire
-            spreadFire(firePositionQueue);
-    
-            //check if the current bot's position is on fire, if so, simulate is a failure
-            if (ship[currentBot[0]][currentBot[1]] == 4) {
-                System.out.println("Failure! The bot has caught on fire!");
-                return;
             }
-            iterations++;
         }
+        spreadNanos += System.nanoTime() - spreadStart;
     }
 
-    public void botTwoSimulation() { //method simulates the bot re-planning (Using uniform cost search) the shortest path from itself to the button at each iteration whilst avoiding current fire cells
+    //the one simulation loop every bot runs in: the policy moves, the fire spreads, the bot fails if its cell burns, and the policy advances.
+    //the queue and the planners' buffers are kept between ticks and simulations, so a tick allocates nothing beyond the planned paths
+    public SimulationResult runSimulation(BotPolicy policy) {
+        ship.clearVisited();
+        queue.clear();
+        for (int i = 0; i < planners.size(); i++) {
+            planners.get(i).reset();
+        }
+        simulationStart = System.nanoTime();
+        planningNanos = 0;
+        spreadNanos = 0;
+        expansions = 0;
+        replans = 0;
+        partialPlans = 0;
+        position = botPosition;
+        if (replayFile != null) {
+            try {
+                replay = new ReplayWriter(replayFile, ship, position, buttonPosition, q);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
-        //create a 'botPositionQueue' and 'firePositionQueue' to store the bot and fire positions
-        Queue<int[]> botPositionQueue = new LinkedList<>();
-        Queue<int[]> firePositionQueue = new LinkedList<>();
+        try {
+            policy.start(this);
+            int iterations = 0;
+            while (iterations < maxIterations) {
+                if (budget != null) {
+                    budget.startTick();
+                }
+                SimulationResult.Outcome outcome = policy.move(this);
+                if (outcome != null) {
+                    return finish(outcome, iterations);
+                }
 
-        //create a 2D boolean array 'visited' to store true for visited and false for unvisited
-        boolean[][] visited = new boolean[rows][cols];
-    
-        botPositionQueue.add(botPosition); //add the initial bot position to the 'botPositionQueue'
-        visited[botPosition[0]][botPosition[1]] = true; //mark this position as visited
-        firePositionQueue.add(firePosition); //add the initial fire position to the 'firePositionQueue'
-    
-        int iterations = 0;
-        List<int[]> currentPath = null; //create and set our 'currentPath' list to null/empty, which will store the current generated path the bot is exploring
-        
+                spreadFire();
 
-        //continue the while loop until the 'botPositionQueue' is empty meaning no more paths/positions to explore or if the maxIterations constant is exceeded
-        while (!botPositionQueue.isEmpty() && iterations < maxIterations) {
-            //set currentPath equal to a new re-planned path that is generated from the 'planPathToButton' method which takes in the botPosition and buttonPosotion as the start/gpal values respectively
-            //this re-planned path should avoid blocked/fire cells
-            currentPath = planPathToButton(botPosition, buttonPosition, visited);
-    
-            //checks if there exists a valid/clean path from the current position to the button, if so, the simulation is succesful since we know the bot can take this path with no issues
-            if (currentPath != null && !containsFireOrBlockedCells(currentPath)) {
-                System.out.println("Success! The bot has reached the button and put out the fire in the ship!");
-                return;
-            }
-    
-            //iterate through the current re-planned path as long as its not empty
-            if (currentPath != null) {
-                for (int[] step : currentPath) { //loop through each step/position in this pth
-                    if (visited[step[0]][step[1]]) { //if the cell is visited already, just continue
-                        continue; 
+                if (ship.isFire(position)) {
+                    return finish(SimulationResult.Outcome.BURNED, iterations);
+                }
+                if (!policy.advance(this)) {
+                    return finish(SimulationResult.Outcome.STUCK, iterations);
+                }
+                iterations++;
+                if (replay != null) {
+                    try {
+                        replay.endTick(ship, position);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
                     }
-                    visited[step[0]][step[1]] = true; //set the position to visited and add that step to the 'botPositionQueue'
-                    botPositionQueue.add(step);
                 }
             }
-    
-            //call the spreadFire() method to simualte the spreading at each iteration
-            spreadFire(firePositionQueue);
-    
-            //check if the bot's current position is on fire (equal to 4), if so, simulation is a failure
-            if (ship[botPosition[0]][botPosition[1]] == 4) {
-                System.out.println("Failure! The bot has caught on fire!");
-                return;
-            }
-    
-            botPosition = botPositionQueue.poll(); //update the bot's position to be the least-recent added element in the queue
-            iterations++;
+            return finish(SimulationResult.Outcome.TIMEOUT, iterations);
+        } finally { //nothing left to do after finish, which closed the replay, but a policy or the fire that threw leaves it open
+            closeReplay();
         }
     }
 
-    public void botThreeSimulation() { //method simulates the bot re-planning (Using uniform cost search) the shortest path from itself to the button at each iteration whilst avoiding cells adjacent to fire cells
-        
-        /*SAME PROCESS AS 'botTwoSimulation', THE ONLY DIFFERENCE IS WE SET 
-        'currentPath' VALUE USING THE 'planPathToButtonWithFireAvoidance' method 
-        instead of the 'planPathToButton' method */
-
-        Queue<int[]> botPositionQueue = new LinkedList<>();
-        Queue<int[]> firePositionQueue = new LinkedList<>();
-        boolean[][] visited = new boolean[rows][cols];
-    
-        botPositionQueue.add(botPosition);
-        visited[botPosition[0]][botPosition[1]] = true;
-        firePositionQueue.add(firePosition);
-    
-        int iterations = 0;
-        List<int[]> currentPath = null; 
-    
-        while (!botPositionQueue.isEmpty() && iterations < maxIterations) {
-            currentPath = planPathToButtonWithFireAvoidance(botPosition, buttonPosition, visited, firePositionQueue);
-    
-            if (currentPath != null && !containsFireOrBlockedCells(currentPath)) {
-                System.out.println("Success! The bot has reached the button and put out the fire in the ship!");
-                return;
-            }
-    
-            currentPath = planPathToButton(botPosition, buttonPosition, visited);
-    
-            if (currentPath != null && !containsFireOrBlockedCells(currentPath)) {
-                System.out.println("Success! The bot has reached the button and put out the fire in the ship!");
-                return;
-            }
-    
-            List<int[]> botNeighbors = getAllNeighbors(botPosition);
-    
-            for (int[] botNeighbor : botNeighbors) {
-                if (!visited[botNeighbor[0]][botNeighbor[1]] && ship[botNeighbor[0]][botNeighbor[1]] != 1) {
-                 
-                    botPositionQueue.add(botNeighbor);
-                    visited[botNeighbor[0]][botNeighbor[1]] = true;
-                }
-            }
-    
-            spreadFire(firePositionQueue);
-    
-            if (ship[botPosition[0]][botPosition[1]] == 4) {
-                System.out.println("Failure! The bot has caught on fire!");
-                return;
+    private void closeReplay() { //the log is left cut short, and the exception that ended the simulation is the one worth reporting
+        if (replay != null) {
+            try {
+                replay.close();
+            } catch (IOException ignored) {
+            } finally {
+                replay = null;
             }
-    
-            botPosition = botPositionQueue.poll(); 
-            iterations++;
         }
     }
 
-    public void botFourSimulation() { //method simulates the bot re-planning the shortest path from itself to the button using A star algorithm
-        
-         /*SAME PROCESS AS 'botTwoSimulation' and 'botThreeSimulation', 
-         THE ONLY DIFFERENCE IS WE SET 'currentPath' VALUE USING THE 
-         'pathPlanAStar' method instead of the 'planPathToButton' or 'planPathToButtonWIthFireAvoidance' method */
-
-        Queue<int[]> botPositionQueue = new LinkedList<>();
-        Queue<int[]> firePositionQueue = new LinkedList<>();
-    
-        boolean[][] visited = new boolean[rows][cols];
-    
-        botPositionQueue.add(botPosition); 
-        visited[botPosition[0]][botPosition[1]] = true; 
-        firePositionQueue.add(firePosition);
-    
-        int iterations = 0;
-        List<int[]> currentPath = null; 
-    
-        while (!botPositionQueue.isEmpty() && iterations < maxIterations) {
-            
-            currentPath = pathPlanAStar(botPosition, buttonPosition, visited, firePositionQueue);
-    
-            if (currentPath != null && !containsFireOrBlockedCells(currentPath)) {
-                System.out.println("Success! The bot has reached the button and put out the fire in the ship!");
-                return;
-            }
-    
-            if (currentPath != null) {
-                for (int[] step : currentPath) {
-                    if (visited[step[0]][step[1]]) {
-                        continue; 
-                    }
-                    visited[step[0]][step[1]] = true; 
-                    botPositionQueue.add(step);
-                }
-            }
-    
-
-            spreadFire(firePositionQueue);
-    
-            if (ship[botPosition[0]][botPosition[1]] == 4) {
-                System.out.println("Failure! The bot has caught on fire!");
-                return;
+    private SimulationResult finish(SimulationResult.Outcome outcome, int ticks) { //reports the outcome and bundles it with the metrics of the simulation
+        switch (outcome) {
+            case SUCCESS: report("Success! The bot has reached the button and put out the fire in the ship!"); break;
+            case BURNED: report(ship.isFire(position) ? "Failure! The bot has caught on fire!" : "Failure! The fire has reached the button!"); break;
+            case STUCK: report("Failure! The bot has no positions left to explore!"); break;
+            default: report("Timeout! The bot did not reach the button within " + maxIterations + " iterations."); break;
+        }
+        if (replay != null) {
+            try {
+                replay.finish(outcome, ticks);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                replay = null;
             }
-    
-            botPosition = botPositionQueue.poll();
-            iterations++;
         }
+        return new SimulationResult(outcome, ticks, expansions, replans, partialPlans, fireEngine.getBurningCount(),
+                System.nanoTime() - simulationStart, planningNanos, spreadNanos);
+    }
+
+    public SimulationResult botOneSimulation() { //Bot One explores the ship breadth first to find the button, ignoring the spread of the fire
+        return runSimulation(StandardPolicy.BOT_ONE);
+    }
+
+    public SimulationResult botTwoSimulation() { //Bot Two re-plans (uniform cost search) the shortest path from itself to the button at each iteration whilst avoiding visited cells
+        return runSimulation(StandardPolicy.BOT_TWO);
+    }
+
+    public SimulationResult botThreeSimulation() { //Bot Three re-plans the shortest path whilst avoiding cells adjacent to fire cells, and without that restriction if that fails
+        return runSimulation(StandardPolicy.BOT_THREE);
+    }
+
+    public SimulationResult botFourSimulation() { //Bot Four re-plans the shortest path from itself to the button using A star whilst avoiding cells adjacent to fire cells
+        return runSimulation(StandardPolicy.BOT_FOUR);
+    }
+
+    public SimulationResult botFiveSimulation() { //Bot Five walks one step per tick along a risk weighted A star path, using a fire arrival field computed once per tick
+        return runSimulation(StandardPolicy.BOT_FIVE);
     }
 
     public static void main(String[] args) {
@@ -1,20 +1,105 @@
 import java.util.*;
 
 public class ShipGenerator {
-    private int[][] ship;
+    private ShipGrid ship; //bit packed ship layout, see ShipGrid
     private int rows, cols;
-    private Random random = new Random();
+    private RandomStream random; //the layout's own stream, see RandomStream
+    private int botCell, buttonCell, fireCell; //padded cell indices (see ShipGrid.index) of the initial bot, button and fire positions
+    private int[] botCells, buttonCells, fireCells; //every bot, button and initial fire of a multi agent layout (null for a single agent one), botCell ... are their first entries
+    private LandmarkIndex landmarks; //built on first use, see getLandmarks
+    private CorridorGraph corridors; //built on first use, see getCorridors
+    private ShipGenerator indexLayout = this; //the layout whose LandmarkIndex and CorridorGraph this one uses, a copy shares those of its original
+
+    //generation works on primitive cell buffers (padded ShipGrid indices) and removes entries by swapping in the last one,
+    //so opening a cell is O(1) and nothing is allocated per cell
+    private int[] candidates = new int[64]; //cells that may be opened next, a cell can appear more than once
+    private int candidateCount;
+    private int[] deadEnds = new int[64]; //open interior cells with three blocked neighbors
+    private int deadEndCount;
 
     public ShipGenerator(int rows, int cols){
+        this(rows, cols, RandomStream.unseeded());
+    }
+
+    public ShipGenerator(int rows, int cols, long seed){ //seeded constructor so that a layout can be reproduced from its seed
+        this(rows, cols, RandomStream.of(seed));
+    }
+
+    //multi agent constructor (see MultiAgentSimulation): places 'bots' bots, 'buttons' buttons and 'fires' initial fires on distinct open cells.
+    //the layout itself is the one the seeded constructor generates, and with one of each the positions are the same as well
+    public ShipGenerator(int rows, int cols, long seed, int bots, int buttons, int fires){
+        this(rows, cols, RandomStream.of(seed), bots, buttons, fires);
+    }
+
+    private ShipGenerator(int rows, int cols, RandomStream random){
+        this(rows, cols, random, 1, 1, 1);
+    }
+
+    private ShipGenerator(int rows, int cols, RandomStream random, int bots, int buttons, int fires){
         this.rows = rows;
         this.cols = cols;
-        this.ship = new int[rows][cols];
+        this.random = random;
+        this.ship = new ShipGrid(rows, cols);
         generateShipConfig();
-        loosenShipConfigDeadEnds((findDeadEnds().size() / 2) - 1);
-        initializeBotButtonFirePositions();
+        findDeadEnds();
+        loosenShipConfigDeadEnds((deadEndCount / 2) - 1);
+        if (bots == 1 && buttons == 1 && fires == 1) {
+            initializeBotButtonFirePositions();
+        } else {
+            initializeAgentPositions(bots, buttons, fires);
+        }
+    }
+
+    //rebuilds a generator around an existing layout, used by copy() and ShipLayoutFile. 'ship' must already have the initial fire set
+    ShipGenerator(ShipGrid ship, int botCell, int buttonCell, int fireCell){
+        this.rows = ship.getRows();
+        this.cols = ship.getCols();
+        this.ship = ship;
+        this.botCell = botCell;
+        this.buttonCell = buttonCell;
+        this.fireCell = fireCell;
+    }
+
+    public ShipGenerator copy() { //independent copy of this layout, the simulations set cells on fire and visited so every trial needs its own
+        ShipGenerator copy = new ShipGenerator(new ShipGrid(ship), botCell, buttonCell, fireCell);
+        copy.botCells = botCells; //never modified once placed, so the copies share them
+        copy.buttonCells = buttonCells;
+        copy.fireCells = fireCells;
+        copy.shareIndexes(this);
+        return copy;
+    }
+
+    void shareIndexes(ShipGenerator layout) { //uses the LandmarkIndex and CorridorGraph of 'layout', which must have the same open cells (a copy of it)
+        indexLayout = layout.indexLayout;
     }
 
-    public int[][] getShip() {
+    //the ALT heuristic index of the layout, built on first use and kept with it: a layout in a ShipLayoutCache builds it once for all of its trials.
+    //it only depends on the open cells, so the fire and visited cells of a running simulation do not matter
+    public LandmarkIndex getLandmarks() {
+        if (indexLayout != this) {
+            return indexLayout.getLandmarks();
+        }
+        synchronized (this) { //a shared layout may be asked by several threads at once
+            if (landmarks == null) {
+                landmarks = new LandmarkIndex(ship);
+            }
+            return landmarks;
+        }
+    }
+
+    public CorridorGraph getCorridors() { //the layout's junctions and corridors, built on first use and kept with it like getLandmarks
+        if (indexLayout != this) {
+            return indexLayout.getCorridors();
+        }
+        synchronized (this) {
+            if (corridors == null) {
+                corridors = new CorridorGraph(ship);
+            }
+            return corridors;
+        }
+    }
+
+    public ShipGrid getShip() {
         return ship;
     }
     public int getRows() {
@@ -23,191 +108,204 @@ public class ShipGenerator {
     public int getCols() {
         return cols;
     }
+    public int getBotCell() {
+        return botCell;
+    }
+    public int getButtonCell() {
+        return buttonCell;
+    }
+    public int getFireCell() {
+        return fireCell;
+    }
+    public int[] getBotCells() { //every bot's cell, just the one of getBotCell() for a single agent layout
+        return botCells != null ? botCells : new int[] {botCell};
+    }
+    public int[] getButtonCells() {
+        return buttonCells != null ? buttonCells : new int[] {buttonCell};
+    }
+    public int[] getFireCells() {
+        return fireCells != null ? fireCells : new int[] {fireCell};
+    }
 
     private void initializeBotButtonFirePositions() {
-        int[] buttonPosition;
-        int[] initialFirePosition;
-        int[] initialBotPosition;
         do {
             // Generate random positions for button, bot, and initial fire
-            buttonPosition = randomOpenShipPosition();
-            initialFirePosition = randomOpenShipPosition();
-            initialBotPosition = randomOpenShipPosition();
-        } while (Arrays.equals(buttonPosition, initialFirePosition) 
-                || Arrays.equals(initialFirePosition, initialBotPosition) 
-                || Arrays.equals(initialBotPosition, buttonPosition));
+            buttonCell = randomOpenShipCell();
+            fireCell = randomOpenShipCell();
+            botCell = randomOpenShipCell();
+        } while (buttonCell == fireCell || fireCell == botCell || botCell == buttonCell);
 
-        // Set the values for the button, initial fire, and initial bot positions
-        ship[buttonPosition[0]][buttonPosition[1]] = 3;  // Set button position to 3
-        ship[initialFirePosition[0]][initialFirePosition[1]] = 4;  // Set initial fire position to 4
-        ship[initialBotPosition[0]][initialBotPosition[1]] = 2;  // Set initial bot position to 2
+        // The button and bot cells stay open, only the initial fire position is set on fire
+        ship.ignite(fireCell);
     }
 
-    private void initializeShip(){
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                ship[i][j] = 1;
-            }
+    private void initializeAgentPositions(int bots, int buttons, int fires) { //same draws as above for several of each: buttons first, then fires, then bots
+        if (bots < 1 || buttons < 1 || fires < 1 || bots + buttons + fires > ship.countOpen()) {
+            throw new IllegalArgumentException("Cannot place " + bots + " bots, " + buttons + " buttons and " + fires + " fires on " + ship.countOpen() + " open cells");
+        }
+        BitSet taken = new BitSet(ship.size());
+        buttonCells = randomDistinctOpenCells(buttons, taken);
+        fireCells = randomDistinctOpenCells(fires, taken);
+        botCells = randomDistinctOpenCells(bots, taken);
+        buttonCell = buttonCells[0];
+        fireCell = fireCells[0];
+        botCell = botCells[0];
+        for (int cell : fireCells) {
+            ship.ignite(cell);
         }
     }
 
+    private int[] randomDistinctOpenCells(int count, BitSet taken) { //'count' open cells that are not in 'taken', which they are added to
+        int[] cells = new int[count];
+        for (int i = 0; i < count; i++) {
+            int cell;
+            do {
+                cell = randomOpenShipCell();
+            } while (taken.get(cell));
+            taken.set(cell);
+            cells[i] = cell;
+        }
+        return cells;
+    }
+
+    private void initializeShip(){
+        ship.blockAll();
+    }
+
     private void generateShipConfig() {
-        // Initialize all cells as blocked (1)
+        // Initialize all cells as blocked
         initializeShip();
 
-        // Choose a random starting point within the valid range and mark it as open (0)
+        // Choose a random starting point within the valid range and mark it as open
         int startRow = random.nextInt(rows);
         int startCol = random.nextInt(cols);
-        ship[startRow][startCol] = 0;
+        int start = ship.index(startRow, startCol);
+        ship.setOpen(start);
 
         // Create a list of cells with exactly one open neighbor
-        List<int[]> candidates = new ArrayList<>();
-        candidates.add(new int[]{startRow - 1, startCol});
-        candidates.add(new int[]{startRow + 1, startCol});
-        candidates.add(new int[]{startRow, startCol - 1});
-        candidates.add(new int[]{startRow, startCol + 1});
-
-        while (!candidates.isEmpty()) {
-            // Choose a random cell from the candidates
-            int randIndex = random.nextInt(candidates.size());
-            int[] currentCell = candidates.remove(randIndex);
-            int row = currentCell[0];
-            int col = currentCell[1];
-
-            // Check if the cell is valid
-            if (!inShip(row, col)) {
-                continue; // Skip this cell and choose another candidate
-            }
+        candidateCount = 0;
+        addNeighborCandidates(start);
 
+        while (candidateCount > 0) {
+            // Choose a random cell from the candidates and swap the last candidate into its slot,
+            // every candidate is still equally likely to be chosen, so the layouts follow the same distribution as removing from the middle
+            int randIndex = random.nextInt(candidateCount);
+            int cell = candidates[randIndex];
+            candidates[randIndex] = candidates[--candidateCount];
 
-            // Count the number of open neighbors
-            int openNeighbors = 0;
-            if (inShip(row - 1, col) && ship[row - 1][col] == 0) openNeighbors++;
-            if (inShip(row + 1, col) && ship[row + 1][col] == 0) openNeighbors++;
-            if (inShip(row, col - 1) && ship[row][col - 1] == 0) openNeighbors++;
-            if (inShip(row, col + 1) && ship[row][col + 1] == 0) openNeighbors++;
+            // Check if the cell is valid (the padded border is neither open nor blocked)
+            if (!ship.isInside(cell)) {
+                continue; // Skip this cell and choose another candidate
+            }
 
-            if (openNeighbors == 1) {
-                ship[row][col] = 0;
+            // Count the number of open neighbors (no bounds checks are needed thanks to the border)
+            if (ship.openNeighborCount(cell) == 1) {
+                ship.setOpen(cell);
 
             //Add neighbors of the current cell to the candidates list
-                candidates.add(new int[]{row - 1, col});
-                candidates.add(new int[]{row + 1, col});
-                candidates.add(new int[]{row, col - 1});
-                candidates.add(new int[]{row, col + 1});
+                addNeighborCandidates(cell);
             }
         }
     }
 
+    private void addNeighborCandidates(int cell) { //pushes the up, down, left and right neighbors of 'cell' onto the candidate buffer
+        if (candidateCount + 4 > candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidates.length * 2);
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            candidates[candidateCount++] = ship.neighbor(cell, direction);
+        }
+    }
+
     public boolean inShip(int row, int col) {
         return row >= 0 && row < rows && col >= 0 && col < cols;
     }
 
-    public void printship() {
+    public void printship() { //prints the ship with the original cell codes: 0 = open, 1 = blocked, 2 = bot, 3 = button, 4 = fire
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                System.out.print(ship[i][j] + "  ");
+                int cell = ship.index(i, j);
+                int code = ship.isBlocked(cell) ? 1 : ship.isFire(cell) ? 4 : cell == buttonCell ? 3 : cell == botCell ? 2 : 0;
+                System.out.print(code + "  ");
             }
             System.out.println();
         }
     }
-    
-    private int[] randomOpenShipPosition() {
-        int row, col;
+
+    private int randomOpenShipCell() {
+        int cell;
         do {
-            row = random.nextInt(rows);
-            col = random.nextInt(cols);
-        } while (ship[row][col] != 0);
-        return new int[]{row, col};
+            int row = random.nextInt(rows);
+            int col = random.nextInt(cols);
+            cell = ship.index(row, col);
+        } while (!ship.isOpen(cell));
+        return cell;
     }
 
-    private boolean isShipCellInterior(int row, int col) {
-        return inShip(row - 1, col) && inShip(row + 1, col) && inShip(row, col - 1) && inShip(row, col + 1);
+    private boolean hasExactlyOneOpenNeighbor(int cell) {
+        return ship.openNeighborCount(cell) == 1;
     }
 
-    private boolean hasExactlyOneOpenNeighbor(int row, int col) {
-        int openNeighborCount = 0;
-        if (inShip(row - 1, col) && ship[row - 1][col] == 0) openNeighborCount++;
-        if (inShip(row + 1, col) && ship[row + 1][col] == 0) openNeighborCount++;
-        if (inShip(row, col - 1) && ship[row][col - 1] == 0) openNeighborCount++;
-        if (inShip(row, col + 1) && ship[row][col + 1] == 0) openNeighborCount++;
-        return openNeighborCount == 1;
+    private boolean hasExactlyThreeBlockedNeighbors(int cell) {
+        return ship.blockedNeighborCount(cell) == 3;
     }
 
-    private boolean hasExactlyThreeBlockedNeighbors(int row, int col) {
-        int blockedNeighborCount = 0;
-        if (inShip(row - 1, col) && ship[row - 1][col] == 1) blockedNeighborCount++;
-        if (inShip(row + 1, col) && ship[row + 1][col] == 1) blockedNeighborCount++;
-        if (inShip(row, col - 1) && ship[row][col - 1] == 1) blockedNeighborCount++;
-        if (inShip(row, col + 1) && ship[row][col + 1] == 1) blockedNeighborCount++;
-        return blockedNeighborCount == 3;
-    }
+    private void findDeadEnds() { //fills the dead end buffer, called once after generateShipConfig
+        deadEndCount = 0;
 
-    private List<int[]> findDeadEnds() {
-        List<int[]> deadEndPositions = new ArrayList<>();
-    
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (ship[i][j] == 0 && isShipCellInterior(i, j) && hasExactlyThreeBlockedNeighbors(i, j) && hasExactlyOneOpenNeighbor(i, j)) {
+        for (int i = 1; i < rows - 1; i++) { //only interior cells qualify, so the outer rows and columns are skipped
+            int cell = ship.index(i, 1);
+            for (int j = 1; j < cols - 1; j++, cell++) {
+                if (ship.isOpen(cell) && hasExactlyThreeBlockedNeighbors(cell) && hasExactlyOneOpenNeighbor(cell)) {
                     // Check if the current cell meets the updated criteria for a dead-end cell.
-                    // - It must be open (ship[i][j] == 0).
+                    // - It must be open.
                     // - It must have exactly four valid neighbors (up, down, left, and right).
-                    // - Out of these four valid neighbors, three must be blocked (ship[i][j] == 1).
-                    // - Exactly one of the four valid neighbors must be open (ship[i][j] == 0).
-                    deadEndPositions.add(new int[]{i, j});
+                    // - Out of these four valid neighbors, three must be blocked.
+                    // - Exactly one of the four valid neighbors must be open.
+                    if (deadEndCount == deadEnds.length) {
+                        deadEnds = Arrays.copyOf(deadEnds, deadEndCount * 2);
+                    }
+                    deadEnds[deadEndCount++] = cell;
                 }
             }
         }
-    
-        return deadEndPositions;
     }
 
     private void loosenShipConfigDeadEnds(int numDeadEndsToModify) {
-        List<int[]> deadEndPositions = findDeadEnds();
-    
+        int[] blockedNeighbors = new int[4]; //scratch buffer for the blocked neighbors of the chosen dead end
+
         int numModified = 0;
-        while (numModified < numDeadEndsToModify && !deadEndPositions.isEmpty()) {
-            // Randomly select a dead-end position from the list
-            int randIndex = random.nextInt(deadEndPositions.size());
-            int[] position = deadEndPositions.get(randIndex);
-    
-            // Check if the selected dead-end cell has exactly three blocked neighbors
-            if (hasExactlyThreeBlockedNeighbors(position[0], position[1])) {
-                // Initialize a list to store the blocked neighbors
-                List<int[]> blockedNeighbors = new ArrayList<>();
-    
-                // Check each of the four possible neighbors
-                if (inShip(position[0] - 1, position[1]) && ship[position[0] - 1][position[1]] == 1) {
-                    blockedNeighbors.add(new int[]{position[0] - 1, position[1]});
-                }
-                if (inShip(position[0] + 1, position[1]) && ship[position[0] + 1][position[1]] == 1) {
-                    blockedNeighbors.add(new int[]{position[0] + 1, position[1]});
-                }
-                if (inShip(position[0], position[1] - 1) && ship[position[0]][position[1] - 1] == 1) {
-                    blockedNeighbors.add(new int[]{position[0], position[1] - 1});
-                }
-                if (inShip(position[0], position[1] + 1) && ship[position[0]][position[1] + 1] == 1) {
-                    blockedNeighbors.add(new int[]{position[0], position[1] + 1});
-                }
-    
-                // If there are blocked neighbors, choose one randomly to open
-                if (!blockedNeighbors.isEmpty()) {
-                    int randNeighborIndex = random.nextInt(blockedNeighbors.size());
-                    int[] neighbor = blockedNeighbors.get(randNeighborIndex);
-                    ship[neighbor[0]][neighbor[1]] = 0; // Open the selected blocked neighbor
-                    numModified++; // Increment the count of modified dead-end cells
-    
-                    // Print the chosen dead-end cell position and the modified neighbor
-                    //System.out.println("Chosen Dead-End Cell: (" + position[0] + ", " + position[1] + ")");
-                    //System.out.println("Modified Neighbor: (" + neighbor[0] + ", " + neighbor[1] + ")");
+        while (numModified < numDeadEndsToModify && deadEndCount > 0) {
+            // Randomly select a dead-end cell and swap-remove it from the buffer
+            int randIndex = random.nextInt(deadEndCount);
+            int cell = deadEnds[randIndex];
+            deadEnds[randIndex] = deadEnds[--deadEndCount];
+
+            // Opening a neighbor of an earlier dead end can turn this one into a corridor, such stale entries are dropped here.
+            // Blocked counts only ever go down, so a dropped entry can never become a dead end again
+            if (hasExactlyThreeBlockedNeighbors(cell)) {
+                // Collect the blocked neighbors, in up, down, left, right order
+                int blockedCount = 0;
+                for (int direction = 0; direction < 4; direction++) {
+                    int neighbor = ship.neighbor(cell, direction);
+                    if (ship.isBlocked(neighbor)) {
+                        blockedNeighbors[blockedCount++] = neighbor;
+                    }
                 }
+
+                // Choose one of the blocked neighbors randomly to open
+                int neighbor = blockedNeighbors[random.nextInt(blockedCount)];
+                ship.setOpen(neighbor); // Open the selected blocked neighbor
+                numModified++; // Increment the count of modified dead-end cells
+
+                // Print the chosen dead-end cell position and the modified neighbor
+                //System.out.println("Chosen Dead-End Cell: (" + ship.row(cell) + ", " + ship.col(cell) + ")");
+                //System.out.println("Modified Neighbor: (" + ship.row(neighbor) + ", " + ship.col(neighbor) + ")");
             }
-            // Remove the processed dead-end position from the list
-            deadEndPositions.remove(randIndex);
-        } 
+        }
     }
-    
+
     public static void main(String[] args) {
         new ShipGenerator(20, 20).printship();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,218 @@
+import java.nio.LongBuffer;
+import java.util.*;
+
+public class ShipGrid { //compact ship representation, every cell property is one bit in a long[] plane and the cells are laid out flat with a one cell border around the ship
+    private final int rows, cols; //dimensions of the ship itself (without the border)
+    private final int stride; //cells per padded row, moving one row up or down is -stride / +stride
+    private final int size; //total number of padded cells
+    private final long[] open; //bit set = open cell the bots and the fire can move onto
+    private final long[] blocked; //bit set = blocked cell inside the ship, the border cells are neither open nor blocked
+    private final long[] fire; //bit set = cell is on fire
+    private final long[] visited; //bit set = cell was visited by the bot in the current simulation
+
+    public ShipGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = cols + 2;
+        this.size = (rows + 2) * stride;
+        int words = (size + 63) >>> 6;
+        this.open = new long[words];
+        this.blocked = new long[words];
+        this.fire = new long[words];
+        this.visited = new long[words];
+    }
+
+    public ShipGrid(ShipGrid other) { //copies every plane of 'other', so a layout can be reused by several simulations
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.stride = other.stride;
+        this.size = other.size;
+        this.open = other.open.clone();
+        this.blocked = other.blocked.clone();
+        this.fire = other.fire.clone();
+        this.visited = other.visited.clone();
+    }
+
+    public void copyFrom(ShipGrid other) { //overwrites every plane with those of 'other', which must have the same dimensions, without allocating
+        if (other.rows != rows || other.cols != cols) {
+            throw new IllegalArgumentException("Cannot copy a " + other.rows + "x" + other.cols + " ship into a " + rows + "x" + cols + " one");
+        }
+        System.arraycopy(other.open, 0, open, 0, open.length);
+        System.arraycopy(other.blocked, 0, blocked, 0, blocked.length);
+        System.arraycopy(other.fire, 0, fire, 0, fire.length);
+        System.arraycopy(other.visited, 0, visited, 0, visited.length);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+    public int getCols() {
+        return cols;
+    }
+    public int getStride() {
+        return stride;
+    }
+    public int size() { //number of padded cells, every cell index is between 0 and size() - 1
+        return size;
+    }
+
+    public int index(int row, int col) { //encodes a ship position into its padded cell index
+        return (row + 1) * stride + col + 1;
+    }
+    public int row(int cell) {
+        return cell / stride - 1;
+    }
+    public int col(int cell) {
+        return cell % stride - 1;
+    }
+    public int manhattan(int cell, int other) { //steps between two cells if nothing were in the way, the heuristic of every planner
+        return Math.abs(cell / stride - other / stride) + Math.abs(cell % stride - other % stride);
+    }
+
+    public boolean isOpen(int cell) {
+        return (open[cell >>> 6] & (1L << cell)) != 0;
+    }
+    public boolean isBlocked(int cell) {
+        return (blocked[cell >>> 6] & (1L << cell)) != 0;
+    }
+    public boolean isFire(int cell) {
+        return (fire[cell >>> 6] & (1L << cell)) != 0;
+    }
+    public boolean isVisited(int cell) {
+        return (visited[cell >>> 6] & (1L << cell)) != 0;
+    }
+    public boolean isInside(int cell) { //true for cells of the ship itself, false for the padded border
+        return ((open[cell >>> 6] | blocked[cell >>> 6]) & (1L << cell)) != 0;
+    }
+
+    public void setOpen(int cell) {
+        open[cell >>> 6] |= 1L << cell;
+        blocked[cell >>> 6] &= ~(1L << cell);
+    }
+    public void setBlocked(int cell) {
+        blocked[cell >>> 6] |= 1L << cell;
+        open[cell >>> 6] &= ~(1L << cell);
+    }
+    public void ignite(int cell) {
+        fire[cell >>> 6] |= 1L << cell;
+    }
+    public void markVisited(int cell) {
+        visited[cell >>> 6] |= 1L << cell;
+    }
+    public void clearVisited() {
+        Arrays.fill(visited, 0L);
+    }
+    public void clearFire() { //puts out every fire, used to restore a saved fire (see ReplayReader)
+        Arrays.fill(fire, 0L);
+    }
+
+    public void blockAll() { //marks every cell inside the ship as blocked and clears the other planes
+        Arrays.fill(open, 0L);
+        Arrays.fill(blocked, 0L);
+        Arrays.fill(fire, 0L);
+        Arrays.fill(visited, 0L);
+        for (int row = 0; row < rows; row++) {
+            setBits(blocked, index(row, 0), cols);
+        }
+    }
+
+    public int openPlaneWords() { //number of longs written by writeOpenPlane
+        return open.length;
+    }
+
+    public void writeOpenPlane(LongBuffer out) { //writes the open plane, which together with the dimensions fully describes the layout
+        out.put(open);
+    }
+
+    public void readOpenPlane(LongBuffer in) { //restores a layout written by writeOpenPlane: every inside cell that is not open is blocked, nothing burns or is visited
+        blockAll();
+        in.get(open);
+        for (int i = 0; i < open.length; i++) {
+            blocked[i] &= ~open[i];
+        }
+    }
+
+    //word level access for whole grid kernels (FireEngine's dense mode), every plane has openPlaneWords() longs.
+    //'from' is a padded cell index and may lie outside the grid, missing bits read as 0
+
+    public long openBits(int from) { //the open bits of the 64 cells starting at 'from'
+        return window(open, from);
+    }
+    public long fireBits(int from) { //the fire bits of the 64 cells starting at 'from'
+        return window(fire, from);
+    }
+
+    private static long window(long[] plane, int from) {
+        return window(plane, 0, plane.length, from);
+    }
+
+    //the bits of the 64 cells starting at 'from' of the plane held in plane[offset .. offset + words - 1], e.g. one of the planes of
+    //every slot BatchSimulation keeps side by side in one array
+    static long window(long[] plane, int offset, int words, int from) {
+        int word = from >> 6;
+        int shift = from & 63;
+        long low = word >= 0 && word < words ? plane[offset + word] : 0;
+        if (shift == 0) {
+            return low;
+        }
+        long high = word + 1 >= 0 && word + 1 < words ? plane[offset + word + 1] : 0;
+        return (low >>> shift) | (high << (64 - shift));
+    }
+
+    private static void setBits(long[] plane, int from, int count) { //sets 'count' consecutive bits starting at 'from', a whole word at a time where possible
+        int to = from + count;
+        while (from < to) {
+            int word = from >>> 6;
+            int bit = from & 63;
+            int n = Math.min(64 - bit, to - from);
+            long mask = n == 64 ? -1L : ((1L << n) - 1) << bit;
+            plane[word] |= mask;
+            from += n;
+        }
+    }
+
+    private static int bit(long[] plane, int cell) { //returns the bit of 'cell' in 'plane' as 0 or 1
+        return (int) (plane[cell >>> 6] >>> cell) & 1;
+    }
+
+    //the neighbor queries below read single bits out of the planes, no bounds checks are needed because the border is never open, blocked or on fire
+
+    public int openNeighborCount(int cell) {
+        return bit(open, cell - stride) + bit(open, cell + stride) + bit(open, cell - 1) + bit(open, cell + 1);
+    }
+    public int blockedNeighborCount(int cell) {
+        return bit(blocked, cell - stride) + bit(blocked, cell + stride) + bit(blocked, cell - 1) + bit(blocked, cell + 1);
+    }
+    public int fireNeighborCount(int cell) {
+        return bit(fire, cell - stride) + bit(fire, cell + stride) + bit(fire, cell - 1) + bit(fire, cell + 1);
+    }
+
+    public int openNeighborMask(int cell) { //4 bit mask of the open neighbors, bit 0 = up, bit 1 = down, bit 2 = left, bit 3 = right
+        return bit(open, cell - stride) | bit(open, cell + stride) << 1 | bit(open, cell - 1) << 2 | bit(open, cell + 1) << 3;
+    }
+
+    public int neighbor(int cell, int direction) { //neighbor of 'cell' in 'direction' (0 = up, 1 = down, 2 = left, 3 = right), same order as openNeighborMask
+        switch (direction) {
+            case 0: return cell - stride;
+            case 1: return cell + stride;
+            case 2: return cell - 1;
+            default: return cell + 1;
+        }
+    }
+
+    public int countOpen() { //number of open cells, one bitCount per word
+        int count = 0;
+        for (long word : open) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public int countFire() { //number of burning cells
+        int count = 0;
+        for (long word : fire) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
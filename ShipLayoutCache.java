@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class ShipLayoutCache { //LRU cache of generated layouts keyed by (seed, rows, cols), optionally backed by ShipLayoutFiles in a directory
+    private final int capacity; //maximum number of layouts kept in memory
+    private final Path directory; //where layouts are saved and looked up, or null for a memory-only cache
+    private final LinkedHashMap<Key, ShipGenerator> layouts; //in access order, so the eldest entry is the least recently used one
+    private long hits, misses;
+
+    private static final class Key {
+        private final long seed;
+        private final int rows, cols;
+
+        Key(long seed, int rows, int cols) {
+            this.seed = seed;
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return seed == key.seed && rows == key.rows && cols == key.cols;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(seed) * 31 * 31 + rows * 31 + cols;
+        }
+    }
+
+    public ShipLayoutCache(int capacity) {
+        this(capacity, null);
+    }
+
+    public ShipLayoutCache(int capacity, Path directory) {
+        this.capacity = capacity;
+        this.directory = directory;
+        this.layouts = new LinkedHashMap<Key, ShipGenerator>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ShipGenerator> eldest) {
+                return size() > ShipLayoutCache.this.capacity;
+            }
+        };
+    }
+
+    //returns a private copy of the layout for (seed, rows, cols), so the caller may set cells on fire
+    public ShipGenerator get(long seed, int rows, int cols) {
+        return getShared(seed, rows, cols).copy();
+    }
+
+    //returns the cached layout itself, which must not be modified (SimulationContext.newShipBots copies it into its own grid).
+    //its LandmarkIndex (ShipGenerator.getLandmarks) is built on first use and cached along with it, for every trial on the layout.
+    //a layout missing from memory is loaded from the directory, or generated (and saved there) when there is no file for it yet
+    public ShipGenerator getShared(long seed, int rows, int cols) {
+        Key key = new Key(seed, rows, cols);
+        ShipGenerator layout;
+        synchronized (this) {
+            layout = layouts.get(key);
+            if (layout != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (layout == null) {
+            //loaded or generated outside the lock, two threads racing for the same key build the same deterministic layout
+            layout = loadOrGenerate(seed, rows, cols);
+            synchronized (this) {
+                layouts.put(key, layout);
+            }
+        }
+        return layout;
+    }
+
+    private ShipGenerator loadOrGenerate(long seed, int rows, int cols) {
+        if (directory == null) {
+            return new ShipGenerator(rows, cols, seed);
+        }
+        //a seed's layout depends on the generator ShipGenerator draws from, so the file name names it and files of another generator are never read
+        Path file = directory.resolve("ship-" + rows + "x" + cols + "-" + seed + "-" + RandomStream.DEFAULT_ALGORITHM + ".bin");
+        try {
+            if (Files.exists(file)) {
+                return ShipLayoutFile.load(file);
+            }
+            ShipGenerator layout = new ShipGenerator(rows, cols, seed);
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "ship", ".tmp"); //written aside and moved into place, so a reader never sees a half written file
+            ShipLayoutFile.save(layout, temporary);
+            Files.move(temporary, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+            return layout;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
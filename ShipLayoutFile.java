@@ -0,0 +1,59 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class ShipLayoutFile { //compact binary format for a generated ship: a fixed header followed by the open bit plane, loaded through a memory-mapped FileChannel
+    private static final int MAGIC = 0x53484950; //"SHIP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40; //10 ints, a multiple of 8 so the plane that follows is long aligned
+
+    //header layout: magic, version, rows, cols, bot row/col, button row/col, fire row/col
+    //the positions are stored as (row, col) rather than padded indices so the format does not depend on ShipGrid's padding
+
+    public static void save(ShipGenerator layout, Path file) throws IOException {
+        ShipGrid ship = layout.getShip();
+        long bytes = HEADER_BYTES + 8L * ship.openPlaneWords();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(ship.getRows()).putInt(ship.getCols());
+            putPosition(buffer, ship, layout.getBotCell());
+            putPosition(buffer, ship, layout.getButtonCell());
+            putPosition(buffer, ship, layout.getFireCell());
+            ship.writeOpenPlane(buffer.asLongBuffer());
+            buffer.force();
+        }
+    }
+
+    public static ShipGenerator load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a ship layout file: " + file);
+            }
+            ShipGrid ship = new ShipGrid(buffer.getInt(), buffer.getInt());
+            int botCell = getPosition(buffer, ship);
+            int buttonCell = getPosition(buffer, ship);
+            int fireCell = getPosition(buffer, ship);
+            if (buffer.remaining() != 8L * ship.openPlaneWords()) {
+                throw new IOException("Truncated ship layout file: " + file);
+            }
+            ship.readOpenPlane(buffer.asLongBuffer());
+            ship.ignite(fireCell);
+            return new ShipGenerator(ship, botCell, buttonCell, fireCell);
+        }
+    }
+
+    private static void putPosition(ByteBuffer buffer, ShipGrid ship, int cell) {
+        buffer.putInt(ship.row(cell)).putInt(ship.col(cell));
+    }
+
+    private static int getPosition(ByteBuffer buffer, ShipGrid ship) {
+        int row = buffer.getInt();
+        int col = buffer.getInt();
+        return ship.index(row, col);
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.*;
+
+//reusable simulation state: a ship grid and every engine bound to it (search, fire, arrival field, incremental planners).
+//a trial copies its layout into the context's grid and resets the engines instead of allocating them again, so back to back trials
+//of the same size allocate next to nothing. A context runs one simulation at a time, forCurrentThread() gives every worker thread its own
+public class SimulationContext {
+    private static final ThreadLocal<SimulationContext> PER_THREAD = ThreadLocal.withInitial(SimulationContext::new);
+    static final int INCREMENTAL_SLOTS = 3; //one incremental (or corridor) planner per built in ShipBots planner that can use one
+
+    private ShipGrid grid; //the ship every engine below is bound to
+    private SearchEngine searchEngine; //the engines are created on first use and dropped when the grid changes
+    private FireEngine fireEngine;
+    private FireArrivalField fireArrivalField;
+    private BidirectionalSearch bidirectionalSearch;
+    private JumpPointSearch jumpPointSearch;
+    private final IncrementalPlanner[] incrementalPlanners = new IncrementalPlanner[INCREMENTAL_SLOTS];
+    private final CorridorPlanner[] corridorPlanners = new CorridorPlanner[INCREMENTAL_SLOTS]; //not bound to the grid, they are sized for the largest graph so far
+    private TrialOracle oracle; //sized for the last classified layout
+    private BatchSimulation batchSimulation; //not bound to the grid, sized for the last batch
+
+    public static SimulationContext forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    //a ShipBots for a private copy of 'layout' (which is not modified), with a seeded fire. It stays valid until the next newShipBots on this context
+    public ShipBots newShipBots(ShipGenerator layout, double q, long seed) {
+        return new ShipBots(this, load(layout), q, RandomStream.of(seed), null);
+    }
+
+    //same, with a fire that replays 'schedule', see CoupledFireSweep
+    public ShipBots newShipBots(ShipGenerator layout, double q, FireSchedule schedule) {
+        return new ShipBots(this, load(layout), q, null, schedule);
+    }
+
+    public TrialOracle.Verdict classify(ShipGenerator layout) { //runs the TrialOracle on 'layout', which is not modified
+        if (oracle == null || oracle.size() != layout.getShip().size()) {
+            oracle = new TrialOracle(layout.getShip().size());
+        }
+        return oracle.classify(layout);
+    }
+
+    private ShipGenerator load(ShipGenerator layout) { //copies 'layout' into the context's grid, which is only reallocated when the dimensions change
+        ShipGrid ship = layout.getShip();
+        if (grid == null || grid.getRows() != ship.getRows() || grid.getCols() != ship.getCols()) {
+            use(new ShipGrid(ship.getRows(), ship.getCols()));
+        }
+        grid.copyFrom(ship);
+        ShipGenerator loaded = new ShipGenerator(grid, layout.getBotCell(), layout.getButtonCell(), layout.getFireCell());
+        loaded.shareIndexes(layout); //so a cached layout's LandmarkIndex and CorridorGraph serve every trial on it
+        return loaded;
+    }
+
+    void use(ShipGrid grid) { //binds the context to 'grid', dropping the engines of the previous one
+        if (grid == this.grid) {
+            return;
+        }
+        this.grid = grid;
+        searchEngine = null;
+        fireEngine = null;
+        fireArrivalField = null;
+        bidirectionalSearch = null;
+        jumpPointSearch = null;
+        Arrays.fill(incrementalPlanners, null);
+    }
+
+    //the getters below hand out the engines of the current grid, creating them on first use
+
+    SearchEngine searchEngine() { //epoch stamped, needs no reset between searches
+        if (searchEngine == null) {
+            searchEngine = new SearchEngine(grid);
+        }
+        return searchEngine;
+    }
+
+    FireEngine fireEngine(double q, RandomStream random, FireSchedule schedule) { //a fire engine with nothing burning yet
+        if (fireEngine == null) {
+            fireEngine = schedule == null ? new FireEngine(grid, q, random) : new FireEngine(grid, schedule);
+        } else {
+            fireEngine.reset(q, random, schedule);
+        }
+        return fireEngine;
+    }
+
+    FireArrivalField fireArrivalField() {
+        if (fireArrivalField == null) {
+            fireArrivalField = new FireArrivalField(grid);
+        }
+        return fireArrivalField;
+    }
+
+    BidirectionalSearch bidirectionalSearch() {
+        if (bidirectionalSearch == null) {
+            bidirectionalSearch = new BidirectionalSearch(grid);
+        }
+        return bidirectionalSearch;
+    }
+
+    JumpPointSearch jumpPointSearch() {
+        if (jumpPointSearch == null) {
+            jumpPointSearch = new JumpPointSearch(grid);
+        }
+        return jumpPointSearch;
+    }
+
+    IncrementalPlanner incrementalPlanner(int slot, int goal, SearchEngine.CellFilter filter) { //a fresh D* Lite towards 'goal'
+        if (incrementalPlanners[slot] == null) {
+            incrementalPlanners[slot] = new IncrementalPlanner(grid, goal, filter);
+        } else {
+            incrementalPlanners[slot].reset(goal, filter);
+        }
+        return incrementalPlanners[slot];
+    }
+
+    CorridorPlanner corridorPlanner(int slot, CorridorGraph graph, SearchEngine.CellFilter filter) { //a corridor planner on 'graph' with 'filter', which counts the blocked cells of an edge when a search first needs it
+        if (corridorPlanners[slot] == null) {
+            corridorPlanners[slot] = new CorridorPlanner(graph, filter);
+        } else {
+            corridorPlanners[slot].reset(graph, filter);
+        }
+        return corridorPlanners[slot];
+    }
+
+    BatchSimulation batchSimulation(int rows, int cols, int slots) { //a batch engine for rows x cols ships, only reallocated when the shape changes
+        if (batchSimulation == null || batchSimulation.getRows() != rows || batchSimulation.getCols() != cols || batchSimulation.getSlots() != slots) {
+            batchSimulation = new BatchSimulation(rows, cols, slots);
+        }
+        return batchSimulation;
+    }
+}
@@ -0,0 +1,67 @@
+public final class SimulationResult { //outcome and cost of one bot simulation, returned by ShipBots.botOneSimulation() ... botFiveSimulation()
+    public enum Outcome {
+        SUCCESS, //the bot reached the button (Bots 2-4: found a path to it that is free of fire)
+        BURNED, //the bot caught fire, or the fire reached the button first
+        STUCK, //the bot ran out of cells to explore
+        TIMEOUT //the simulation hit maxIterations
+    }
+
+    private final Outcome outcome;
+    private final int ticks; //fire spread steps taken before the outcome was decided
+    private final long expansions; //cells expanded by all the planner calls of the simulation
+    private final int replans; //number of planner calls
+    private final int partialPlans; //planner calls that ran out of the PlanningBudget and returned a partial path, 0 without a budget
+    private final int peakFire; //largest number of burning cells, the fire never shrinks so this is the final fire size
+    private final long wallNanos; //time spent in the whole simulation...
+    private final long planningNanos; //...of which in the planners...
+    private final long spreadNanos; //...and in spreading the fire
+
+    public SimulationResult(Outcome outcome, int ticks, long expansions, int replans, int partialPlans, int peakFire, long wallNanos, long planningNanos, long spreadNanos) {
+        this.outcome = outcome;
+        this.ticks = ticks;
+        this.expansions = expansions;
+        this.replans = replans;
+        this.partialPlans = partialPlans;
+        this.peakFire = peakFire;
+        this.wallNanos = wallNanos;
+        this.planningNanos = planningNanos;
+        this.spreadNanos = spreadNanos;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+    public boolean isSuccess() {
+        return outcome == Outcome.SUCCESS;
+    }
+    public int getTicks() {
+        return ticks;
+    }
+    public long getExpansions() {
+        return expansions;
+    }
+    public int getReplans() {
+        return replans;
+    }
+    public int getPartialPlans() {
+        return partialPlans;
+    }
+    public int getPeakFire() {
+        return peakFire;
+    }
+    public long getWallNanos() {
+        return wallNanos;
+    }
+    public long getPlanningNanos() {
+        return planningNanos;
+    }
+    public long getSpreadNanos() {
+        return spreadNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s after %d ticks, %d replans%s expanding %d cells, peak fire %d, %.3f ms (planning %.3f ms, spread %.3f ms)",
+                outcome, ticks, replans, partialPlans == 0 ? "" : " (" + partialPlans + " partial)", expansions, peakFire, wallNanos / 1e6, planningNanos / 1e6, spreadNanos / 1e6);
+    }
+}
@@ -0,0 +1,165 @@
+public enum StandardPolicy implements BotPolicy { //Bots 1-5 of ShipBots as BotPolicies, the queue they share is ShipBots.getQueue()
+    BOT_ONE { //explores the ship breadth first ignoring the fire, one queued cell per tick
+        @Override
+        public SimulationResult.Outcome move(ShipBots simulation) {
+            IntQueue queue = simulation.getQueue();
+            if (queue.isEmpty()) {
+                return SimulationResult.Outcome.STUCK;
+            }
+            ShipGrid ship = simulation.getShip();
+            int position = queue.poll(); //the earliest cell explored by the bot
+            simulation.moveTo(position);
+            if (position == simulation.getButtonCell() && !ship.isFire(position)) {
+                return SimulationResult.Outcome.SUCCESS;
+            }
+            for (int mask = ship.openNeighborMask(position); mask != 0; mask &= mask - 1) { //walls and the border are never open
+                int neighbor = ship.neighbor(position, Integer.numberOfTrailingZeros(mask));
+                if (!ship.isVisited(neighbor)) { //marked when queued, so every cell is queued once and the search really is breadth first
+                    queue.add(neighbor);
+                    simulation.markVisited(neighbor);
+                }
+            }
+            return null;
+        }
+    },
+    BOT_TWO { //replans with uniform cost search avoiding visited cells, and queues the cells of the planned path
+        @Override
+        public SimulationResult.Outcome move(ShipBots simulation) {
+            return planAndQueuePath(simulation, simulation.getPlainPlanner());
+        }
+
+        @Override
+        public boolean plansShortestPaths() {
+            return true;
+        }
+
+        @Override
+        public boolean advance(ShipBots simulation) {
+            return moveToNextQueued(simulation);
+        }
+    },
+    BOT_THREE { //replans avoiding cells next to the fire, then without that restriction, and otherwise queues the unvisited neighbors
+        @Override
+        public SimulationResult.Outcome move(ShipBots simulation) {
+            if (simulation.getQueue().isEmpty()) {
+                return SimulationResult.Outcome.STUCK;
+            }
+            if (isCleanPath(simulation, simulation.getFireAvoidingPlanner())
+                    || isCleanPath(simulation, simulation.getPlainPlanner())) {
+                return SimulationResult.Outcome.SUCCESS;
+            }
+            ShipGrid ship = simulation.getShip();
+            int position = simulation.getPosition();
+            for (int mask = ship.openNeighborMask(position); mask != 0; mask &= mask - 1) {
+                int neighbor = ship.neighbor(position, Integer.numberOfTrailingZeros(mask));
+                if (!ship.isVisited(neighbor)) {
+                    simulation.getQueue().add(neighbor);
+                    simulation.markVisited(neighbor);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean advance(ShipBots simulation) {
+            return moveToNextQueued(simulation);
+        }
+
+        @Override
+        public boolean plansShortestPaths() {
+            return true;
+        }
+    },
+    BOT_FOUR { //same as Bot Two, planning with A star while avoiding cells next to the fire
+        @Override
+        public SimulationResult.Outcome move(ShipBots simulation) {
+            return planAndQueuePath(simulation, simulation.getAStarPlanner());
+        }
+
+        @Override
+        public boolean plansShortestPaths() {
+            return true;
+        }
+
+        @Override
+        public boolean advance(ShipBots simulation) {
+            return moveToNextQueued(simulation);
+        }
+    },
+    BOT_FIVE { //walks one step per tick along a risk weighted A star path, using a fire arrival field computed once per tick
+        @Override
+        public void start(ShipBots simulation) {
+        }
+
+        @Override
+        public SimulationResult.Outcome move(ShipBots simulation) {
+            if (simulation.getPosition() == simulation.getButtonCell()) {
+                return SimulationResult.Outcome.SUCCESS;
+            }
+            if (simulation.getShip().isFire(simulation.getButtonCell())) {
+                return SimulationResult.Outcome.BURNED;
+            }
+            int[] path = simulation.getRiskPlanner().plan(simulation.getPosition(), simulation.getButtonCell());
+            if (path != null && path.length > 0) {
+                simulation.moveTo(path[0]); //take the first step, the rest of the path is replanned next tick
+            }
+            return simulation.getPosition() == simulation.getButtonCell() ? SimulationResult.Outcome.SUCCESS : null;
+        }
+
+        @Override
+        public boolean plansShortestPaths() { //the risk weights stay at 1 along a shortest path the fire cannot get near, so it walks one
+            return true;
+        }
+    };
+
+    @Override
+    public void start(ShipBots simulation) { //Bots 1-4 start with the bot's cell queued and visited
+        simulation.getQueue().add(simulation.getPosition());
+        simulation.markVisited(simulation.getPosition());
+    }
+
+    private static boolean isCleanPath(ShipBots simulation, Planner planner) { //plans from the bot to the button with 'planner' and checks that path
+        return isCleanPath(simulation, planner, planner.plan(simulation.getPosition(), simulation.getButtonCell()));
+    }
+
+    //Bots 2-4 count a planned path to the button that is free of fire and walls as a success right away, a partial path does not reach the button
+    private static boolean isCleanPath(ShipBots simulation, Planner planner, int[] path) {
+        if (path == null || planner.isPartial()) {
+            return false;
+        }
+        ShipGrid ship = simulation.getShip();
+        for (int cell : path) {
+            if (!ship.isOpen(cell) || ship.isFire(cell)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static SimulationResult.Outcome planAndQueuePath(ShipBots simulation, Planner planner) {
+        if (simulation.getQueue().isEmpty()) {
+            return SimulationResult.Outcome.STUCK;
+        }
+        int[] path = planner.plan(simulation.getPosition(), simulation.getButtonCell());
+        if (isCleanPath(simulation, planner, path)) { //a partial path is queued like any other, the bot walks towards the button while it plans again
+            return SimulationResult.Outcome.SUCCESS;
+        }
+        if (path != null) {
+            for (int cell : path) {
+                if (!simulation.getShip().isVisited(cell)) {
+                    simulation.markVisited(cell);
+                    simulation.getQueue().add(cell);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean moveToNextQueued(ShipBots simulation) { //the bot moves to the least recently queued cell
+        if (simulation.getQueue().isEmpty()) {
+            return false;
+        }
+        simulation.moveTo(simulation.getQueue().poll());
+        return true;
+    }
+}
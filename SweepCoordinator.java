@@ -0,0 +1,215 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+//runs a sweep too large for one JVM: the trials are split into shards of consecutive trial numbers, every shard runs in a worker JVM
+//started with ProcessBuilder, and a finished shard is checkpointed as a SweepShardFile. A worker that crashes only loses its own shard,
+//which is handed out again, and a coordinator started again on the same directory only runs the shards that have no file yet.
+//the trial seeds do not depend on the sharding, so the merged counters are the ones a single ExperimentRunner would tally
+public class SweepCoordinator {
+    private static final int MAX_ATTEMPTS = 3; //a shard whose worker fails this many times fails the sweep
+    private static final long POLL_MILLIS = 50; //how often the running workers are checked
+
+    private final Path directory; //shard-<n>.bin of every finished shard, and shard-<n>.log with the output of its last worker
+    private final int trials, shardSize;
+    private final List<String> options; //sweep options handed to every worker, see newRunner
+
+    public SweepCoordinator(Path directory, int trials, int shardSize, List<String> options) {
+        this.directory = directory;
+        this.trials = trials;
+        this.shardSize = shardSize;
+        this.options = new ArrayList<>(options);
+    }
+
+    public int getShards() {
+        return (trials + shardSize - 1) / shardSize;
+    }
+
+    private int firstTrial(int shard) {
+        return shard * shardSize;
+    }
+
+    private int shardTrials(int shard) {
+        return Math.min(shardSize, trials - firstTrial(shard));
+    }
+
+    private Path shardFile(int shard) {
+        return directory.resolve("shard-" + shard + ".bin");
+    }
+
+    private Path logFile(int shard) {
+        return directory.resolve("shard-" + shard + ".log");
+    }
+
+    //runs every unfinished shard, on at most 'workers' worker JVMs at a time with 'threads' threads each, and returns the merged sweep
+    public ExperimentRunner run(int workers, int threads) throws IOException, InterruptedException {
+        Files.createDirectories(directory);
+        ExperimentRunner sweep = newRunner(trials, options); //never runs itself, it only adds up the shard counters
+        Deque<Integer> pending = new ArrayDeque<>();
+        for (int shard = 0; shard < getShards(); shard++) {
+            if (!Files.exists(shardFile(shard)) || !merge(sweep, shard)) {
+                pending.add(shard);
+            }
+        }
+        if (pending.size() < getShards()) {
+            System.out.printf("Resuming: %d of %d shards already finished%n", getShards() - pending.size(), getShards());
+        }
+
+        int[] attempts = new int[getShards()];
+        Map<Process, Integer> running = new LinkedHashMap<>(); //worker process -> its shard
+        try {
+            while (!pending.isEmpty() || !running.isEmpty()) {
+                while (running.size() < workers && !pending.isEmpty()) {
+                    int shard = pending.poll();
+                    attempts[shard]++;
+                    running.put(startWorker(shard, threads), shard);
+                }
+                Thread.sleep(POLL_MILLIS);
+                for (Iterator<Map.Entry<Process, Integer>> it = running.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Process, Integer> worker = it.next();
+                    if (worker.getKey().isAlive()) {
+                        continue;
+                    }
+                    it.remove();
+                    int shard = worker.getValue();
+                    int exitCode = worker.getKey().exitValue();
+                    if (exitCode == 0 && merge(sweep, shard)) {
+                        continue;
+                    }
+                    System.err.printf("Shard %d failed (worker exit code %d, attempt %d of %d), see %s%n", shard, exitCode, attempts[shard], MAX_ATTEMPTS, logFile(shard));
+                    if (attempts[shard] == MAX_ATTEMPTS) {
+                        throw new IOException("Shard " + shard + " failed " + MAX_ATTEMPTS + " times");
+                    }
+                    pending.add(shard);
+                }
+            }
+        } finally {
+            for (Process worker : running.keySet()) { //only left over when the sweep failed or was interrupted
+                worker.destroyForcibly();
+            }
+        }
+        return sweep;
+    }
+
+    private boolean merge(ExperimentRunner sweep, int shard) { //adds the shard's file to 'sweep', false (and nothing added) if the file is missing or unusable
+        try {
+            SweepShardFile.addTo(sweep, shardFile(shard), firstTrial(shard), shardTrials(shard));
+            return true;
+        } catch (IOException e) {
+            System.err.println("Redoing shard " + shard + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Process startWorker(int shard, int threads) throws IOException { //a JVM on the same classpath running 'SweepCoordinator --worker ...'
+        List<String> command = new ArrayList<>(Arrays.asList(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), SweepCoordinator.class.getName(), "--worker",
+                directory.toString(), String.valueOf(trials), String.valueOf(shardSize), String.valueOf(shard), String.valueOf(threads)));
+        command.addAll(options);
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(logFile(shard).toFile());
+        return builder.start();
+    }
+
+    private void runWorker(int shard, int threads) throws IOException { //runs one shard in this JVM and checkpoints it
+        ExperimentRunner runner = newRunner(shardTrials(shard), options);
+        runner.setFirstTrial(firstTrial(shard));
+        long start = System.nanoTime();
+        runner.runParallel(threads);
+        SweepShardFile.save(runner, shardFile(shard));
+        System.out.printf("Shard %d: trials %d to %d in %.1f s%n", shard, firstTrial(shard), firstTrial(shard) + shardTrials(shard) - 1, (System.nanoTime() - start) / 1e9);
+    }
+
+    //an ExperimentRunner for 'trials' trials with the sweep options: --seed=<master seed> --size=<rows and cols> --bots=1,2,... --q=0.2,...
+    //--coupled --planner=<mode> --oracle --layouts=<dir> --batch=<slots> --budget=<expansions> --budget-us=<microseconds>, the same options
+    //always give the same trial seeds and fingerprint. Only --budget keeps the shards reproducible, under --budget-us a redone shard may
+    //tally other numbers
+    static ExperimentRunner newRunner(int trials, List<String> options) {
+        long masterSeed = 1L;
+        int size = 100;
+        int[] bots = {1, 2, 3, 4, 5};
+        double[] qValues = {0.20, 0.55, 0.70, 0.85};
+        for (String option : options) {
+            if (option.startsWith("--seed=")) {
+                masterSeed = Long.parseLong(option.substring("--seed=".length()));
+            } else if (option.startsWith("--size=")) {
+                size = Integer.parseInt(option.substring("--size=".length()));
+            } else if (option.startsWith("--bots=")) {
+                bots = Arrays.stream(option.substring("--bots=".length()).split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (option.startsWith("--q=")) {
+                qValues = Arrays.stream(option.substring("--q=".length()).split(",")).mapToDouble(Double::parseDouble).toArray();
+            }
+        }
+
+        ExperimentRunner runner = new ExperimentRunner(size, size, trials, bots, qValues, masterSeed);
+        for (String option : options) {
+            if (option.equals("--coupled")) {
+                runner.setCoupledFire(true);
+            } else if (option.equals("--oracle")) {
+                runner.setOracle(true);
+            } else if (option.startsWith("--planner=")) {
+                runner.setPlannerMode(ShipBots.PlannerMode.valueOf(option.substring("--planner=".length())));
+            } else if (option.startsWith("--layouts=")) {
+                runner.setLayoutCache(new ShipLayoutCache(trials, Paths.get(option.substring("--layouts=".length()))));
+            } else if (option.startsWith("--batch=")) {
+                runner.setBatchSlots(Integer.parseInt(option.substring("--batch=".length())));
+            } else if (option.startsWith("--budget=")) {
+                runner.setBudgetExpansions(Integer.parseInt(option.substring("--budget=".length())));
+            } else if (option.startsWith("--budget-us=")) {
+                runner.setBudgetNanos(Long.parseLong(option.substring("--budget-us=".length())) * 1000);
+            } else if (!option.matches("--(seed|size|bots|q)=.*")) {
+                throw new IllegalArgumentException("Unknown sweep option: " + option);
+            }
+        }
+        return runner;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        //usage: java SweepCoordinator <directory> [trials] [--shard-size=100] [--workers=<n>] [--threads=<per worker>] [sweep options, see newRunner]
+        //finished shards are kept in <directory>, running the same command again resumes the sweep
+        if (args.length > 0 && args[0].equals("--worker")) { //--worker <directory> <trials> <shard size> <shard> <threads> [sweep options]
+            SweepCoordinator coordinator = new SweepCoordinator(Paths.get(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Arrays.asList(args).subList(6, args.length));
+            coordinator.runWorker(Integer.parseInt(args[4]), Integer.parseInt(args[5]));
+            return;
+        }
+        if (args.length == 0) {
+            System.err.println("usage: java SweepCoordinator <directory> [trials] [--shard-size=100] [--workers=<n>] [--threads=<per worker>] [--seed=1] [--size=100]"
+                    + " [--bots=1,2,3,4,5] [--q=0.20,0.55,0.70,0.85] [--coupled] [--planner=<mode>] [--oracle] [--layouts=<dir>]"
+                    + " [--batch=<slots>] [--budget=<n> | --budget-us=<n>]");
+            System.exit(2);
+        }
+
+        Path directory = Paths.get(args[0]);
+        int trials = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : 500;
+        int shardSize = 100;
+        int processors = Runtime.getRuntime().availableProcessors();
+        int workers = Math.max(1, processors / 2);
+        int threads = -1; //default: the processors split evenly between the workers
+        List<String> options = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--shard-size=")) {
+                shardSize = Integer.parseInt(arg.substring("--shard-size=".length()));
+            } else if (arg.startsWith("--workers=")) {
+                workers = Integer.parseInt(arg.substring("--workers=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--")) {
+                options.add(arg);
+            }
+        }
+        if (threads < 0) {
+            threads = Math.max(1, processors / workers);
+        }
+
+        SweepCoordinator coordinator = new SweepCoordinator(directory, trials, shardSize, options);
+        long start = System.nanoTime();
+        ExperimentRunner sweep = coordinator.run(workers, threads);
+        System.out.printf("Ran %d trials in %d shards on %d workers in %.1f s%n", trials, coordinator.getShards(), workers, (System.nanoTime() - start) / 1e9);
+        sweep.printResults();
+        sweep.printMetrics();
+    }
+}
@@ -0,0 +1,61 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public class SweepShardFile { //the counters of one finished shard of a sweep, written by a SweepCoordinator worker and merged by the coordinator
+    private static final int MAGIC = 0x53574550; //"SWEP"
+    private static final int VERSION = 1;
+
+    //layout: magic, version, sweep fingerprint, first trial, trial count, then ExperimentRunner.writeCounters
+    //followed by the magic again, so a file cut short is rejected instead of merged
+
+    public static void save(ExperimentRunner shard, Path file) throws IOException { //written aside and moved into place, the file exists only once it is complete
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), "shard", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(shard.getFingerprint());
+            out.writeInt(shard.getFirstTrial());
+            out.writeInt(shard.getTrials());
+            shard.writeCounters(out);
+            out.writeInt(MAGIC);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //checks that 'file' holds trials firstTrial .. firstTrial + trials - 1 of the sweep of 'sweep', then adds its counters to 'sweep'.
+    //the whole file is parsed into counters of its own first, 'sweep' only changes once every check passed, so a rejected file adds nothing.
+    //throws IOException for a damaged file and IllegalStateException for a shard of a sweep with other settings
+    public static void addTo(ExperimentRunner sweep, Path file, int firstTrial, int trials) throws IOException {
+        byte[] bytes = Files.readAllBytes(file); //a few KB, read whole so the trailing magic can be checked before the counters are parsed
+        if (bytes.length < 8 || ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt() != MAGIC) {
+            throw new IOException("Truncated sweep shard file: " + file);
+        }
+        ExperimentRunner.TrialCounter[][] shard;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a sweep shard file: " + file);
+            }
+            if (in.readLong() != sweep.getFingerprint()) { //not a damaged file to redo, but another sweep's work that must not be overwritten
+                throw new IllegalStateException("Shard of a different sweep: " + file + ", use another directory for this sweep");
+            }
+            if (in.readInt() != firstTrial || in.readInt() != trials) {
+                throw new IOException("Shard with the wrong trial range: " + file);
+            }
+            shard = sweep.readCounters(in);
+            if (in.readInt() != MAGIC || in.available() != 0) { //the counters must end exactly where the trailer starts
+                throw new IOException("Damaged sweep shard file: " + file);
+            }
+        } catch (EOFException e) { //shorter than the counters, nothing was added yet
+            throw new IOException("Damaged sweep shard file: " + file, e);
+        }
+        sweep.addCounters(shard);
+    }
+}
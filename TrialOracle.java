@@ -0,0 +1,99 @@
+//pre-check of a trial from its layout alone: BFS distances from the bot, the button and the initial fire decide whether the trial is settled
+//whatever the fire draws. The fire spreads at most one cell per tick for any q, so its BFS distance to a cell is the earliest tick it can burn there
+public class TrialOracle {
+    public enum Verdict {
+        WON, //every shortest path from the bot to the button stays clear of the fire even if it spreads every tick, a policy planning shortest paths wins
+        IMPOSSIBLE, //every path from the bot to the button runs through the initial fire, no policy can win
+        CONTESTED //anything else, the outcome depends on the fire draws and on the policy
+    }
+
+    //a shortest path cell must burn at least this many ticks after the bot gets there: 1 so the bot is never caught,
+    //and Bot Five's risk margin so its risk weighted search still sees the shortest paths at their plain length
+    private static final int SAFETY_MARGIN = Math.max(1, ShipBots.RISK_MARGIN);
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final int size; //number of padded cells of the layouts this oracle can classify
+    private final int[] fromBot, fromButton, fromFire; //BFS distances, only valid where the matching stamp equals epoch
+    private final int[] botStamp, buttonStamp, fireStamp;
+    private int epoch; //incremented once per classify, so nothing has to be cleared between trials
+    private final int[] order; //BFS queue, after a search order[0 .. reached) lists the cells it reached
+    private int reached;
+
+    public TrialOracle(int size) {
+        this.size = size;
+        this.fromBot = new int[size];
+        this.fromButton = new int[size];
+        this.fromFire = new int[size];
+        this.botStamp = new int[size];
+        this.buttonStamp = new int[size];
+        this.fireStamp = new int[size];
+        this.order = new int[size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Verdict classify(ShipGenerator layout) { //three BFS passes over the open cells, 'layout' is only read
+        ShipGrid ship = layout.getShip();
+        int bot = layout.getBotCell(), button = layout.getButtonCell(), fire = layout.getFireCell();
+        epoch++;
+
+        distances(ship, button, fire, fromButton, buttonStamp);
+        distances(ship, fire, -1, fromFire, fireStamp);
+        distances(ship, bot, fire, fromBot, botStamp); //last, so order[] holds the cells reached from the bot
+        int length = distance(fromBot, botStamp, button);
+        if (length == UNREACHED) {
+            return Verdict.IMPOSSIBLE;
+        }
+        //the planners that do not avoid the fire may route through it, so it must not lie on a path as short as the fire free ones
+        if (distance(fromBot, botStamp, fire) != UNREACHED && fromBot[fire] + distance(fromButton, buttonStamp, fire) <= length) {
+            return Verdict.CONTESTED;
+        }
+
+        int stride = ship.getStride();
+        for (int i = 0; i < reached; i++) {
+            int cell = order[i];
+            int toButton = distance(fromButton, buttonStamp, cell);
+            if (toButton == UNREACHED || fromBot[cell] + toButton != length) {
+                continue; //not on a shortest path
+            }
+            int offset = Math.abs(cell - fire);
+            if (offset <= 1 || Math.abs(offset - stride) <= 1) { //in the 3x3 block of the initial fire, Bots Three and Four would not plan through it
+                return Verdict.CONTESTED;
+            }
+            int toFire = distance(fromFire, fireStamp, cell);
+            if (toFire != UNREACHED && toFire - fromBot[cell] < SAFETY_MARGIN) {
+                return Verdict.CONTESTED;
+            }
+        }
+        return Verdict.WON;
+    }
+
+    //breadth first search over the open cells from 'source'. 'barrier' (the initial fire, or -1) gets its distance but is not expanded
+    private void distances(ShipGrid ship, int source, int barrier, int[] distance, int[] stamp) {
+        int head = 0;
+        reached = 0;
+        stamp[source] = epoch;
+        distance[source] = 0;
+        order[reached++] = source;
+        while (head < reached) {
+            int cell = order[head++];
+            if (cell == barrier) {
+                continue;
+            }
+            for (int mask = ship.openNeighborMask(cell); mask != 0; mask &= mask - 1) {
+                int neighbor = ship.neighbor(cell, Integer.numberOfTrailingZeros(mask));
+                if (stamp[neighbor] != epoch) {
+                    stamp[neighbor] = epoch;
+                    distance[neighbor] = distance[cell] + 1;
+                    order[reached++] = neighbor;
+                }
+            }
+        }
+    }
+
+    private int distance(int[] distance, int[] stamp, int cell) {
+        return stamp[cell] == epoch ? distance[cell] : UNREACHED;
+    }
+}
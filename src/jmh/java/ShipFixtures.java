@@ -0,0 +1,101 @@
+import benchmarks.Fixture;
+import benchmarks.Fixtures;
+
+//the benchmarked operations on the simulator's classes, see benchmarks.Fixtures. Every operation of a size rotates through the same few
+//layouts, so one lucky layout does not skew a result, and works on copies of them
+public class ShipFixtures implements Fixtures {
+    private static final long LAYOUT_SEED = 42L; //benchmark layouts are generated from LAYOUT_SEED, LAYOUT_SEED + 1, ...
+    private static final int LAYOUTS = 4; //number of different layouts the benchmarks rotate through
+    private static final int FIRE_TICKS = 10; //ticks the fire spreads before a planner is timed, so the fire avoiding planners have something to avoid
+
+    public Fixture generation(int size) {
+        return new Fixture() {
+            private long seed = LAYOUT_SEED;
+
+            public void setUp() {
+            }
+
+            public long run() {
+                return new ShipGenerator(size, size, seed++).getButtonCell();
+            }
+        };
+    }
+
+    public Fixture spreadFire(int size, double q) {
+        ShipLayoutCache layouts = new ShipLayoutCache(LAYOUTS);
+        return new Fixture() {
+            private ShipBots shipBots;
+            private int trial;
+
+            public void setUp() {
+                shipBots = newShipBots(layouts, size, q, trial++, ShipBots.PlannerMode.FULL_SEARCH);
+            }
+
+            public long run() {
+                shipBots.spreadFire();
+                return shipBots.getFireEngine().getIgnitedCount();
+            }
+        };
+    }
+
+    public Fixture planner(int size, double q, String planner, String plannerMode) {
+        ShipLayoutCache layouts = new ShipLayoutCache(LAYOUTS);
+        ShipBots.PlannerMode mode = ShipBots.PlannerMode.valueOf(plannerMode);
+        return new Fixture() {
+            private ShipBots shipBots;
+            private int start, goal, trial;
+
+            public void setUp() { //the planners do not change the ship themselves, so every call plans on the same ship and fire
+                shipBots = newShipBots(layouts, size, q, trial, mode);
+                ShipGenerator layout = layouts.get(LAYOUT_SEED + trial % LAYOUTS, size, size);
+                start = layout.getBotCell();
+                goal = layout.getButtonCell();
+                for (int tick = 0; tick < FIRE_TICKS; tick++) {
+                    shipBots.spreadFire();
+                }
+                trial++;
+            }
+
+            public long run() {
+                int[] path;
+                switch (planner) {
+                    case "planPathToButton": path = shipBots.planPathToButton(start, goal); break;
+                    case "planPathToButtonWithFireAvoidance": path = shipBots.planPathToButtonWithFireAvoidance(start, goal); break;
+                    case "pathPlanAStar": path = shipBots.pathPlanAStar(start, goal); break;
+                    default: throw new IllegalArgumentException("Unknown planner: " + planner);
+                }
+                return path == null ? -1 : path.length;
+            }
+        };
+    }
+
+    public Fixture simulation(int size, double q, int bot, String plannerMode) {
+        ShipLayoutCache layouts = new ShipLayoutCache(LAYOUTS);
+        ShipBots.PlannerMode mode = ShipBots.PlannerMode.valueOf(plannerMode);
+        return new Fixture() {
+            private ShipBots shipBots;
+            private int trial;
+
+            public void setUp() { //a ShipBots runs one simulation
+                shipBots = newShipBots(layouts, size, q, trial++, mode);
+            }
+
+            public long run() {
+                switch (bot) {
+                    case 1: return shipBots.botOneSimulation().getTicks();
+                    case 2: return shipBots.botTwoSimulation().getTicks();
+                    case 3: return shipBots.botThreeSimulation().getTicks();
+                    case 4: return shipBots.botFourSimulation().getTicks();
+                    default: return shipBots.botFiveSimulation().getTicks();
+                }
+            }
+        };
+    }
+
+    private static ShipBots newShipBots(ShipLayoutCache layouts, int size, double q, int trial, ShipBots.PlannerMode plannerMode) {
+        ShipBots shipBots = new ShipBots(layouts.get(LAYOUT_SEED + trial % LAYOUTS, size, size), q, ExperimentRunner.trialSeed(LAYOUT_SEED, trial));
+        shipBots.setVerbose(false);
+        shipBots.setPlannerMode(plannerMode);
+        return shipBots;
+    }
+}
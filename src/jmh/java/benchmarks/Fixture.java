@@ -0,0 +1,8 @@
+package benchmarks;
+
+//one benchmarked operation on its own ship, see Fixtures. setUp() prepares the next measured call or calls and is not timed
+public interface Fixture {
+    void setUp();
+
+    long run(); //the measured work, returns something derived from it for the Blackhole
+}
@@ -0,0 +1,27 @@
+package benchmarks;
+
+//the benchmarked operations of the simulator. JMH refuses benchmarks in the default package, and a named package cannot import the
+//simulator's classes from there, so the benchmarks only see these interfaces and ShipFixtures (default package, next to them in
+//src/jmh/java) implements them, looked up by name once per trial.
+//build and run, with the allocation rate and GC counts of every benchmark:
+//    mvn -B -Pjmh package
+//    java -jar target/benchmarks.jar -prof gc
+//a regular expression picks benchmarks and -p overrides a @Param, e.g. java -jar target/benchmarks.jar Planner -p size=100,500 -p plannerMode=CORRIDOR -prof gc
+public interface Fixtures {
+    Fixture generation(int size); //generates a new size x size ship on every call
+
+    Fixture spreadFire(int size, double q); //one fire step per call, setUp() starts a fresh fire
+
+    //one plan from the bot to the button per call with the ShipBots method 'planner', setUp() takes the next ship and lets its fire burn a few ticks
+    Fixture planner(int size, double q, String planner, String plannerMode);
+
+    Fixture simulation(int size, double q, int bot, String plannerMode); //one whole simulation of Bot 'bot' per call, setUp() takes the next ship
+
+    static Fixtures load() {
+        try {
+            return (Fixtures) Class.forName("ShipFixtures").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("ShipFixtures is not on the class path", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//one plan from the bot to the button with each of ShipBots' three built in planners. Every iteration plans on the next layout, after its
+//fire spread a few ticks; plannerMode picks the planner behind them like ExperimentRunner --planner
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlannerBenchmark {
+    @Param({"50", "100", "500", "1000", "2000"})
+    public int size;
+
+    @Param({"0.20", "0.55", "0.85"})
+    public double q;
+
+    @Param({"FULL_SEARCH"})
+    public String plannerMode;
+
+    private Fixture planPathToButton, planPathToButtonWithFireAvoidance, pathPlanAStar;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        Fixtures fixtures = Fixtures.load();
+        planPathToButton = fixtures.planner(size, q, "planPathToButton", plannerMode);
+        planPathToButtonWithFireAvoidance = fixtures.planner(size, q, "planPathToButtonWithFireAvoidance", plannerMode);
+        pathPlanAStar = fixtures.planner(size, q, "pathPlanAStar", plannerMode);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() { //JMH runs one benchmark method at a time, the other two fixtures are set up for nothing
+        planPathToButton.setUp();
+        planPathToButtonWithFireAvoidance.setUp();
+        pathPlanAStar.setUp();
+    }
+
+    @Benchmark
+    public long planPathToButton() {
+        return planPathToButton.run();
+    }
+
+    @Benchmark
+    public long planPathToButtonWithFireAvoidance() {
+        return planPathToButtonWithFireAvoidance.run();
+    }
+
+    @Benchmark
+    public long pathPlanAStar() {
+        return pathPlanAStar.run();
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//one whole simulation of a bot, on a fresh copy of the next layout. A simulation takes far longer than JMH's per invocation bookkeeping,
+//so the copy is set up per invocation
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+    @Param({"50", "100", "500", "1000", "2000"})
+    public int size;
+
+    @Param({"0.20", "0.55", "0.85"})
+    public double q;
+
+    @Param({"1", "2", "3", "4", "5"})
+    public int bot;
+
+    @Param({"FULL_SEARCH"})
+    public String plannerMode;
+
+    private Fixture simulation;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        simulation = Fixtures.load().simulation(size, q, bot, plannerMode);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        simulation.setUp();
+    }
+
+    @Benchmark
+    public long simulation() {
+        return simulation.run();
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+//one fire spread step. An invocation takes FIRE_STEPS steps of a fresh fire, so the untimed setup of that fire (a copy of the layout) is
+//paid once per FIRE_STEPS steps and the invocation is long enough for Level.Invocation to time it; the score is per step
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpreadFireBenchmark {
+    private static final int FIRE_STEPS = 50; //a fire that burns out before the invocation ends makes its last steps nearly free
+
+    @Param({"50", "100", "500", "1000", "2000"})
+    public int size;
+
+    @Param({"0.20", "0.55", "0.85"})
+    public double q;
+
+    private Fixture spreadFire;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        spreadFire = Fixtures.load().spreadFire(size, q);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        spreadFire.setUp();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIRE_STEPS)
+    public void spreadFire(Blackhole blackhole) {
+        for (int step = 0; step < FIRE_STEPS; step++) {
+            blackhole.consume(spreadFire.run());
+        }
+    }
+}